@@ -0,0 +1,85 @@
+package me.kingjan1999.fhdw.alphacamunda.benchmarks;
+
+import me.kingjan1999.fhdw.alphacamunda.generator.LogGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Common parameters of all benchmarks.
+ * One benchmark operation runs {@link #concurrency} independent jobs at the same time,
+ * so the results show how well the library scales when used concurrently.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class AbstractBenchmark {
+
+    private static final long SEED = 42;
+
+    @Param({"10", "50"})
+    public int activities;
+
+    @Param({"1000", "10000"})
+    public int traces;
+
+    @Param({"1", "4"})
+    public int concurrency;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUpExecutor() {
+        executor = Executors.newFixedThreadPool(concurrency);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return generator for a log with the benchmarked number of activities and traces,
+     * about a quarter of the activities are in XOR blocks and a fifth in parallel blocks
+     */
+    protected LogGenerator createGenerator() {
+        return new LogGenerator()
+                .withSeed(SEED)
+                .withActivities(activities)
+                .withTraces(traces)
+                .withXorChoices(activities / 8)
+                .withParallelSplits(activities / 10);
+    }
+
+    /**
+     * Runs {@link #concurrency} jobs in parallel and waits for all of them
+     *
+     * @param job       Job to run, receives the index of the job
+     * @param blackhole Blackhole consuming the results
+     */
+    protected <T> void runConcurrently(IntFunction<T> job, Blackhole blackhole) throws Exception {
+        if (concurrency == 1) {
+            blackhole.consume(job.apply(0));
+            return;
+        }
+
+        List<Future<T>> futures = new ArrayList<>(concurrency);
+        for (int x = 0; x < concurrency; x++) {
+            final int jobIndex = x;
+            futures.add(executor.submit(() -> job.apply(jobIndex)));
+        }
+        for (var future : futures) {
+            blackhole.consume(future.get());
+        }
+    }
+}
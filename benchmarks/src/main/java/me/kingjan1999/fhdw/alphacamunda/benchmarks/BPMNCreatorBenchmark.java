@@ -0,0 +1,45 @@
+package me.kingjan1999.fhdw.alphacamunda.benchmarks;
+
+import me.kingjan1999.fhdw.alphacamunda.BPMNCreator;
+import me.kingjan1999.fhdw.alphacamunda.RelationBuilder;
+import me.kingjan1999.fhdw.alphacamunda.domain.Activity;
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * Benchmarks {@link BPMNCreator#create(List, List, List, List, List)}
+ * on the relations of a synthetic log
+ */
+public class BPMNCreatorBenchmark extends AbstractBenchmark {
+
+    private List<Activity> activityList;
+    private List<Triple<Activity, Activity, Activity>> alternatives;
+    private List<Triple<Activity, Activity, Activity>> abstractions;
+    private List<Pair<Activity, Activity>> causalities;
+    private List<Pair<Activity, Activity>> noSuccession;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var builder = new RelationBuilder();
+        builder.evaluate(createGenerator().generate(new ActivityRegistry()));
+
+        activityList = builder.getActivityList();
+        alternatives = builder.getAlternatives();
+        abstractions = builder.getAbstractions();
+        causalities = builder.getRemainingCausalities();
+        noSuccession = builder.getNotSuccession();
+    }
+
+    @Benchmark
+    public void create(Blackhole blackhole) throws Exception {
+        runConcurrently(x -> new BPMNCreator().create(activityList, alternatives, abstractions, causalities, noSuccession),
+                blackhole);
+    }
+}
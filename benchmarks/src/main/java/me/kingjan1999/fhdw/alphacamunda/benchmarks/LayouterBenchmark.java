@@ -0,0 +1,48 @@
+package me.kingjan1999.fhdw.alphacamunda.benchmarks;
+
+import me.kingjan1999.fhdw.alphacamunda.BPMNCreator;
+import me.kingjan1999.fhdw.alphacamunda.RelationBuilder;
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.layouter.FluentLayouter;
+import me.kingjan1999.fhdw.alphacamunda.layouter.SugiyamaLayouter;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks {@link FluentLayouter#layout(BpmnModelInstance)} and {@link SugiyamaLayouter#layout(BpmnModelInstance)}
+ * on the model created from a synthetic log
+ */
+public class LayouterBenchmark extends AbstractBenchmark {
+
+    private BpmnModelInstance[] modelInstances;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var builder = new RelationBuilder();
+        builder.evaluate(createGenerator().generate(new ActivityRegistry()));
+
+        // model instances are not thread-safe, so every job gets its own one
+        modelInstances = new BpmnModelInstance[concurrency];
+        for (int x = 0; x < concurrency; x++) {
+            modelInstances[x] = new BPMNCreator().create(
+                    builder.getActivityList(),
+                    builder.getAlternatives(),
+                    builder.getAbstractions(),
+                    builder.getRemainingCausalities(),
+                    builder.getNotSuccession());
+        }
+    }
+
+    @Benchmark
+    public void layout(Blackhole blackhole) throws Exception {
+        runConcurrently(x -> new FluentLayouter().layout(modelInstances[x]), blackhole);
+    }
+
+    @Benchmark
+    public void layoutSugiyama(Blackhole blackhole) throws Exception {
+        runConcurrently(x -> new SugiyamaLayouter().layout(modelInstances[x]), blackhole);
+    }
+}
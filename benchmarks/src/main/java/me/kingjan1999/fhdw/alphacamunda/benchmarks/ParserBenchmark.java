@@ -0,0 +1,64 @@
+package me.kingjan1999.fhdw.alphacamunda.benchmarks;
+
+import me.kingjan1999.fhdw.alphacamunda.ParseOptions;
+import me.kingjan1999.fhdw.alphacamunda.Parser;
+import me.kingjan1999.fhdw.alphacamunda.XesParser;
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Benchmarks {@link Parser} on synthetic XES data held in memory
+ */
+public class ParserBenchmark extends AbstractBenchmark {
+
+    private final XesParser activitiesOnlyParser = new XesParser(ParseOptions.activitiesOnly());
+
+    private byte[] xes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws XMLStreamException {
+        var outputStream = new ByteArrayOutputStream();
+        createGenerator().writeXes(outputStream);
+        xes = outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) throws Exception {
+        runConcurrently(x -> {
+            try {
+                return Parser.parse(new ByteArrayInputStream(xes), new ActivityRegistry());
+            } catch (XMLStreamException e) {
+                throw new IllegalStateException(e);
+            }
+        }, blackhole);
+    }
+
+    @Benchmark
+    public void parseActivitiesOnly(Blackhole blackhole) throws Exception {
+        runConcurrently(x -> {
+            try {
+                return activitiesOnlyParser.parse(new ByteArrayInputStream(xes), new ActivityRegistry());
+            } catch (XMLStreamException e) {
+                throw new IllegalStateException(e);
+            }
+        }, blackhole);
+    }
+
+    @Benchmark
+    public void parseEncoded(Blackhole blackhole) throws Exception {
+        runConcurrently(x -> {
+            try {
+                return Parser.parseEncoded(new ByteArrayInputStream(xes), new ActivityRegistry());
+            } catch (XMLStreamException e) {
+                throw new IllegalStateException(e);
+            }
+        }, blackhole);
+    }
+}
@@ -0,0 +1,52 @@
+package me.kingjan1999.fhdw.alphacamunda.benchmarks;
+
+import me.kingjan1999.fhdw.alphacamunda.RelationBuilder;
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.Log;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmarks {@link RelationBuilder#evaluate(Log)}.
+ * {@link #evaluateParallel()} evaluates a single log on a pool
+ * with {@link #concurrency} threads instead of running independent jobs.
+ */
+public class RelationBuilderBenchmark extends AbstractBenchmark {
+
+    private static final int PARTITION_SIZE = 256;
+
+    private Log log;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        log = createGenerator().generate(new ActivityRegistry());
+        pool = new ForkJoinPool(concurrency);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) throws Exception {
+        runConcurrently(x -> {
+            var builder = new RelationBuilder();
+            builder.evaluate(log);
+            return builder;
+        }, blackhole);
+    }
+
+    @Benchmark
+    public RelationBuilder evaluateParallel() {
+        var builder = new RelationBuilder();
+        builder.evaluateParallel(log, pool, PARTITION_SIZE);
+        return builder;
+    }
+}
@@ -1,27 +1,34 @@
 package me.kingjan1999.fhdw.alphacamunda;
 
+import me.kingjan1999.fhdw.alphacamunda.ProcessGraph.Edge;
+import me.kingjan1999.fhdw.alphacamunda.ProcessGraph.Node;
+import me.kingjan1999.fhdw.alphacamunda.ProcessGraph.NodeType;
 import me.kingjan1999.fhdw.alphacamunda.domain.Activity;
-import me.kingjan1999.fhdw.alphacamunda.layouter.FluentLayouter;
 import me.kingjan1999.fhdw.alphacamunda.layouter.Layouter;
+import me.kingjan1999.fhdw.alphacamunda.layouter.SugiyamaLayouter;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 import org.camunda.bpm.model.bpmn.Bpmn;
 import org.camunda.bpm.model.bpmn.BpmnModelInstance;
-import org.camunda.bpm.model.bpmn.builder.ProcessBuilder;
-import org.camunda.bpm.model.bpmn.instance.Process;
-import org.camunda.bpm.model.bpmn.instance.*;
+import org.camunda.bpm.model.bpmn.instance.ConditionExpression;
+import org.camunda.bpm.model.bpmn.instance.ExclusiveGateway;
+import org.camunda.bpm.model.bpmn.instance.SequenceFlow;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
-import static me.kingjan1999.fhdw.alphacamunda.BPMNUtil.createElement;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 
 /**
  * Responsible for transforming relations into a
@@ -30,8 +37,8 @@ import static me.kingjan1999.fhdw.alphacamunda.BPMNUtil.createElement;
 public class BPMNCreator {
 
     private static final Logger logger = LoggerFactory.getLogger(BPMNCreator.class);
-    private Process process;
-    private Map<Activity, FlowNode> mappedActivities;
+    private ProcessGraph graph;
+    private Map<Activity, Node> mappedActivities;
 
     private static final String ALPHA_NAME = "alpha";
     private static final String EPSILON_NAME = "epsilon";
@@ -74,36 +81,19 @@ public class BPMNCreator {
                                     List<Triple<Activity, Activity, Activity>> abstractions,
                                     List<Pair<Activity, Activity>> causalities,
                                     List<Pair<Activity, Activity>> noSuccession) {
-        ProcessBuilder builder = Bpmn.createExecutableProcess();
-        var modelInstance = builder
-                .startEvent()
-                .name(ALPHA_NAME)
-                .id(ALPHA_NAME)
-                .endEvent()
-                .name(EPSILON_NAME)
-                .id(EPSILON_NAME)
-                .done();
-
-        process = modelInstance.getModelElementsByType(Process.class).iterator().next();
-
-        // We hat to create a flow between start and end event above
-        // This was wrong, so we remove it here
-        process.removeChildElement(process.getModelInstance().getModelElementsByType(SequenceFlow.class).iterator().next());
+        // The model is built and simplified on a lightweight graph
+        // and converted into a camunda model only once at the end
+        graph = new ProcessGraph();
 
         mappedActivities = new HashMap<>();
-        var mappedStartEvent = process.getChildElementsByType(StartEvent.class).iterator().next();
-        mappedActivities.put(Activity.getFakeStart(), mappedStartEvent);
-
-        var mappedEndEvent = process.getChildElementsByType(EndEvent.class).iterator().next();
-        mappedActivities.put(Activity.getFakeEnd(), mappedEndEvent);
+        mappedActivities.put(Activity.getFakeStart(), graph.addNode(ALPHA_NAME, NodeType.START_EVENT, Activity.getFakeStart()));
+        mappedActivities.put(Activity.getFakeEnd(), graph.addNode(EPSILON_NAME, NodeType.END_EVENT, Activity.getFakeEnd()));
 
         // Step 1
-        act.stream().filter(x -> !mappedActivities.containsKey(x)).forEach(x -> {
-            var element = createElement(process, x.getName(), ServiceTask.class);
-            mappedActivities.put(x, element);
-        });
+        act.stream().filter(x -> !mappedActivities.containsKey(x)).forEach(x ->
+                mappedActivities.put(x, graph.addNode(x.getName(), NodeType.TASK, x)));
 
-        List<ExclusiveGateway> xorSplits = new ArrayList<>(alternatives.size());
+        List<Node> xorSplits = new ArrayList<>(alternatives.size());
 
         // Step 2
         createCausalities(causalities);
@@ -124,6 +114,7 @@ public class BPMNCreator {
         mergeGateways();
         deleteRedundantGateways();
 
+        var modelInstance = graph.toModelInstance();
         Bpmn.validateModel(modelInstance);
         return modelInstance;
     }
@@ -134,14 +125,23 @@ public class BPMNCreator {
      * from the model
      */
     private void deleteRedundantGateways() {
-        AtomicBoolean someChange = new AtomicBoolean(true);
-        while (someChange.get()) {
-            someChange.set(false);
-            var allGateways = process.getModelInstance().getModelElementsByType(Gateway.class);
-            for (var gateway : allGateways) {
-                if (gateway.getIncoming().size() == 1 && gateway.getOutgoing().size() == 1) {
-                    safeDeleteNode(gateway);
-                    someChange.set(true);
+        // Only the neighbours of a deleted gateway are reconnected,
+        // so they are the only gateways which have to be checked again
+        Deque<Node> worklist = new ArrayDeque<>(graph.getGateways());
+        Set<Node> queued = new HashSet<>(worklist);
+        while (!worklist.isEmpty()) {
+            var gateway = worklist.poll();
+            queued.remove(gateway);
+            if (gateway.isRemoved() || gateway.getIncoming().size() != 1 || gateway.getOutgoing().size() != 1) {
+                continue;
+            }
+
+            var source = gateway.getIncoming().get(0).getSource();
+            var target = gateway.getOutgoing().get(0).getTarget();
+            safeDeleteNode(gateway);
+            for (var neighbour : List.of(source, target)) {
+                if (neighbour.getType().isGateway() && queued.add(neighbour)) {
+                    worklist.add(neighbour);
                 }
             }
         }
@@ -151,60 +151,77 @@ public class BPMNCreator {
      * Merges redundant gateways (same inputs or same outputs)
      */
     private void mergeGateways() {
-        // we only execute this operation pairwise
-        // but maybe there are > 2 redundant gateways
-        // That's why we do it repeatedly as long as nothing changed
-
-        AtomicBoolean someChange = new AtomicBoolean(true);
-        while (someChange.get()) {
-            someChange.set(false);
-            List<Gateway> deletedGateways = new ArrayList<>();
-            var allGateways = process.getModelInstance().getModelElementsByType(Gateway.class);
-            for (var gateway : allGateways) {
-                var isSplit = gateway.getOutgoing().size() > 1;
-                var filteredGateways = allGateways.stream().filter(x -> {
-                    // Gateways is the same, doesn't exist anymore or is of an other type
-                    return !x.equals(gateway) && !deletedGateways.contains(x) && x.getClass().equals(gateway.getClass());
-                });
-
-                if (isSplit) {
-                    // We merge splits with other splits having the same inputs
-                    var otherWithSameInput = filteredGateways.filter(x -> {
-                        // compare incoming nddes
-                        List<FlowNode> allIncomingLeft = x.getIncoming().stream().map(SequenceFlow::getSource).collect(Collectors.toList());
-                        List<FlowNode> allIncomingRight = gateway.getIncoming().stream().map(SequenceFlow::getSource).collect(Collectors.toList());
-                        return allIncomingLeft.equals(allIncomingRight);
-                    }).findFirst();
-
-                    otherWithSameInput.ifPresent(otherGateway -> {
-                        // delete both gateways and create a new one instead
-                        deletedGateways.add(otherGateway);
-                        deletedGateways.add(gateway);
-                        mergeIncoming(gateway, otherGateway);
-                        someChange.set(true);
-                    });
-                } else {
-                    // Joins are merged with other joins
-                    // having the same outputs
-                    var otherWithSameOutput = filteredGateways.filter(x -> {
-                        List<FlowNode> allOutgoingLeft = x.getOutgoing().stream().map(SequenceFlow::getSource).collect(Collectors.toList());
-                        List<FlowNode> allOutgoingRight = gateway.getOutgoing().stream().map(SequenceFlow::getSource).collect(Collectors.toList());
-                        return allOutgoingLeft.equals(allOutgoingRight);
-                    }).findFirst();
-
-                    otherWithSameOutput.ifPresent(otherGateway -> {
-                        deletedGateways.add(otherGateway);
-                        deletedGateways.add(gateway);
-                        mergeOutgoing(gateway, otherGateway);
-                        someChange.set(true);
-                    });
+        // Gateways are bucketed by a signature of their type and neighbours,
+        // so merge candidates are looked up instead of compared pairwise.
+        // A merge may create new redundant gateways, that's why the new gateway
+        // and all neighbours whose signatures changed are visited again.
+        var byIncoming = new GatewayIndex(gateway -> Signature.of(gateway.getType(), gateway.getIncoming(), Edge::getSource));
+        var byOutgoing = new GatewayIndex(gateway -> Signature.of(gateway.getType(), gateway.getOutgoing(), Edge::getTarget));
+
+        Deque<Node> worklist = new ArrayDeque<>();
+        Set<Node> queued = new HashSet<>();
+        for (var gateway : graph.getGateways()) {
+            byIncoming.add(gateway);
+            byOutgoing.add(gateway);
+            worklist.add(gateway);
+            queued.add(gateway);
+        }
+
+        while (!worklist.isEmpty()) {
+            var gateway = worklist.poll();
+            queued.remove(gateway);
+            if (gateway.isRemoved()) {
+                continue;
+            }
+
+            // We merge splits with other splits having the same inputs
+            // and joins with other joins having the same outputs
+            var isSplit = gateway.getOutgoing().size() > 1;
+            var otherGateway = isSplit ? byIncoming.findOther(gateway) : byOutgoing.findOther(gateway);
+            if (otherGateway == null) {
+                continue;
+            }
+
+            // the signatures of the neighbours change, so they are indexed again after the merge
+            Set<Node> affected = new LinkedHashSet<>();
+            collectNeighbourGateways(gateway, affected);
+            collectNeighbourGateways(otherGateway, affected);
+            affected.add(gateway);
+            affected.add(otherGateway);
+            affected.forEach(byIncoming::remove);
+            affected.forEach(byOutgoing::remove);
+
+            // delete both gateways and create a new one instead
+            var newGateway = isSplit ? mergeIncoming(gateway, otherGateway) : mergeOutgoing(gateway, otherGateway);
+            graph.removeNode(gateway);
+            graph.removeNode(otherGateway);
+            affected.add(newGateway);
+
+            // gateways sharing a bucket with a changed gateway may be mergeable now as well
+            Set<Node> revisit = new LinkedHashSet<>();
+            for (var node : affected) {
+                if (!node.isRemoved()) {
+                    revisit.addAll(byIncoming.add(node));
+                    revisit.addAll(byOutgoing.add(node));
                 }
             }
+            for (var node : revisit) {
+                if (queued.add(node)) {
+                    worklist.add(node);
+                }
+            }
+        }
+    }
 
-            // we could use iterators to delete in-place (and avoid CMEs)
-            // but this way avoids the iterator
-            for (var gatewayToDelete : deletedGateways) {
-                process.removeChildElement(gatewayToDelete);
+    private static void collectNeighbourGateways(Node node, Set<Node> gateways) {
+        for (var edge : node.getIncoming()) {
+            if (edge.getSource().getType().isGateway()) {
+                gateways.add(edge.getSource());
+            }
+        }
+        for (var edge : node.getOutgoing()) {
+            if (edge.getTarget().getType().isGateway()) {
+                gateways.add(edge.getTarget());
             }
         }
     }
@@ -216,8 +233,8 @@ public class BPMNCreator {
      * @param noSuccession noSuccession relation from phase 1
      * @param xorSplits    List of all XOR-splits (necessary for distinguishing splits and joins)
      */
-    private void bundleGatewayFlows(List<Pair<Activity, Activity>> noSuccession, List<ExclusiveGateway> xorSplits) {
-        var allXorGateways = process.getModelInstance().getModelElementsByType(ExclusiveGateway.class);
+    private void bundleGatewayFlows(List<Pair<Activity, Activity>> noSuccession, List<Node> xorSplits) {
+        var allXorGateways = graph.getNodes(NodeType.EXCLUSIVE_GATEWAY);
 
         for (var gateway : allXorGateways) {
             var isSplit = xorSplits.contains(gateway);
@@ -229,13 +246,13 @@ public class BPMNCreator {
 
                 // XXX: This is still a (theoretical)
                 // we only look at the first two incoming gateways, but merge all of them
-                var first = incoming.get(0);
-                var second = incoming.get(1);
+                var first = incoming.get(0).getSource().getActivity();
+                var second = incoming.get(1).getSource().getActivity();
                 var isNoSuccession = noSuccession.contains(Pair.of(first, second)) || noSuccession.contains(Pair.of(second, first));
                 if (isNoSuccession) {
-                    bundleIncoming(gateway, ExclusiveGateway.class);
+                    bundleIncoming(gateway, NodeType.EXCLUSIVE_GATEWAY);
                 } else {
-                    bundleIncoming(gateway, ParallelGateway.class);
+                    bundleIncoming(gateway, NodeType.PARALLEL_GATEWAY);
                 }
             } else {
                 var outgoing = new ArrayList<>(gateway.getOutgoing());
@@ -244,13 +261,13 @@ public class BPMNCreator {
                     continue;
                 }
 
-                var first = outgoing.get(0);
-                var second = outgoing.get(1);
+                var first = outgoing.get(0).getTarget().getActivity();
+                var second = outgoing.get(1).getTarget().getActivity();
                 var isNoSuccession = noSuccession.contains(Pair.of(first, second)) || noSuccession.contains(Pair.of(second, first));
                 if (isNoSuccession) {
-                    bundleOutgoing(gateway, ExclusiveGateway.class);
+                    bundleOutgoing(gateway, NodeType.EXCLUSIVE_GATEWAY);
                 } else {
-                    bundleOutgoing(gateway, ParallelGateway.class);
+                    bundleOutgoing(gateway, NodeType.PARALLEL_GATEWAY);
                 }
             }
         }
@@ -261,10 +278,10 @@ public class BPMNCreator {
      * having more than one input / output (step 5)
      */
     private void bundleActivtyFlows() {
-        var allModelActivites = process.getModelInstance().getModelElementsByType(org.camunda.bpm.model.bpmn.instance.Activity.class);
+        var allModelActivites = graph.getNodes(NodeType.TASK);
         for (var activity : allModelActivites) {
-            bundleIncoming(activity, ParallelGateway.class);
-            bundleOutgoing(activity, ParallelGateway.class);
+            bundleIncoming(activity, NodeType.PARALLEL_GATEWAY);
+            bundleOutgoing(activity, NodeType.PARALLEL_GATEWAY);
         }
     }
 
@@ -281,10 +298,10 @@ public class BPMNCreator {
             var mappedMiddle = mappedActivities.get(alternative.getMiddle());
             var mappedRight = mappedActivities.get(alternative.getRight());
 
-            var xorGateway = createElement(process, "xor-abstr-" + i, ExclusiveGateway.class);
-            createSequenceFlow(mappedLeft, xorGateway);
-            createSequenceFlow(mappedMiddle, xorGateway);
-            createSequenceFlow(xorGateway, mappedRight);
+            var xorGateway = graph.addNode("xor-abstr-" + i, NodeType.EXCLUSIVE_GATEWAY, null);
+            graph.addEdge(mappedLeft, xorGateway);
+            graph.addEdge(mappedMiddle, xorGateway);
+            graph.addEdge(xorGateway, mappedRight);
         }
     }
 
@@ -295,17 +312,17 @@ public class BPMNCreator {
      * @param alternatives alternatives list created in phase 2 (X_{3+})
      * @param xorSplits    list of all xor-splits (necessary for distinguishing splits and joins)
      */
-    private void createAlternatives(List<Triple<Activity, Activity, Activity>> alternatives, List<ExclusiveGateway> xorSplits) {
+    private void createAlternatives(List<Triple<Activity, Activity, Activity>> alternatives, List<Node> xorSplits) {
         for (int i = 0; i < alternatives.size(); i++) {
             var alternative = alternatives.get(i);
             var mappedLeft = mappedActivities.get(alternative.getLeft());
             var mappedMiddle = mappedActivities.get(alternative.getMiddle());
             var mappedRight = mappedActivities.get(alternative.getRight());
 
-            var xorGateway = createElement(process, "xor-alt-" + i, ExclusiveGateway.class);
-            createSequenceFlow(mappedLeft, xorGateway);
-            createSequenceFlow(xorGateway, mappedMiddle);
-            createSequenceFlow(xorGateway, mappedRight);
+            var xorGateway = graph.addNode("xor-alt-" + i, NodeType.EXCLUSIVE_GATEWAY, null);
+            graph.addEdge(mappedLeft, xorGateway);
+            graph.addEdge(xorGateway, mappedMiddle);
+            graph.addEdge(xorGateway, mappedRight);
             xorSplits.add(xorGateway);
         }
     }
@@ -322,7 +339,7 @@ public class BPMNCreator {
 
             var right = causality.getRight();
             var mappedRight = mappedActivities.get(right);
-            createSequenceFlow(mappedLeft, mappedRight);
+            graph.addEdge(mappedLeft, mappedRight);
         }
     }
 
@@ -332,14 +349,13 @@ public class BPMNCreator {
      *
      * @param node Node to delete
      */
-    private void safeDeleteNode(FlowNode node) {
-        var incomingFlow = node.getIncoming().iterator().next();
-        var outgoingFlow = node.getOutgoing().iterator().next();
+    private void safeDeleteNode(Node node) {
+        var incomingFlow = node.getIncoming().get(0);
+        var outgoingFlow = node.getOutgoing().get(0);
+        graph.removeEdge(outgoingFlow);
         incomingFlow.setTarget(outgoingFlow.getTarget());
-        outgoingFlow.getTarget().getIncoming().remove(outgoingFlow);
         incomingFlow.getTarget().getIncoming().add(incomingFlow);
-        process.removeChildElement(outgoingFlow);
-        process.removeChildElement(node);
+        graph.removeNode(node);
     }
 
     /**
@@ -348,16 +364,15 @@ public class BPMNCreator {
      *
      * @param gateway1 Gateway 1
      * @param gateway2 Gateway 2
-     * @param <T>      Type of the old and new gateways
      * @return  The new gateway
      */
-    private <T extends Gateway> Gateway createMergeGateway(T gateway1, T gateway2) {
+    private Node createMergeGateway(Node gateway1, Node gateway2) {
         String id = gateway1.getId() + "_" + gateway2.getId() + "-merged";
-        Class<? extends Gateway> classToCreate = ExclusiveGateway.class;
-        if (gateway1 instanceof ParallelGateway) {
-            classToCreate = ParallelGateway.class;
+        var typeToCreate = NodeType.EXCLUSIVE_GATEWAY;
+        if (gateway1.getType() == NodeType.PARALLEL_GATEWAY) {
+            typeToCreate = NodeType.PARALLEL_GATEWAY;
         }
-        return createElement(process, id, classToCreate);
+        return graph.addNode(id, typeToCreate, null);
     }
 
     /**
@@ -366,34 +381,32 @@ public class BPMNCreator {
      *
      * @param gateway1 Gateway 1
      * @param gateway2 Gateway 2
-     * @param <T>      Type of the gateways
+     * @return The new gateway
      */
-    private <T extends Gateway> void mergeIncoming(T gateway1, T gateway2) {
+    private Node mergeIncoming(Node gateway1, Node gateway2) {
         var newGateway = createMergeGateway(gateway1, gateway2);
         gateway1.getIncoming().forEach(x -> {
             x.setTarget(newGateway);
             newGateway.getIncoming().add(x);
         });
+        gateway1.getIncoming().clear();
 
-        gateway2.getIncoming().forEach(x -> {
-            x.getSource().getOutgoing().remove(x);
-            process.removeChildElement(x);
-        });
+        new ArrayList<>(gateway2.getIncoming()).forEach(graph::removeEdge);
 
-        List<FlowNode> alreadyAddedTargets = new ArrayList<>();
+        Set<Node> alreadyAddedTargets = new HashSet<>();
 
-        Stream.concat(gateway1.getOutgoing().stream(), gateway2.getOutgoing().stream()).forEach(x -> {
-            if (alreadyAddedTargets.contains(x.getTarget())) {
-                process.removeChildElement(x);
-                x.getTarget().getIncoming().remove(x);
-                return;
+        List<Edge> outgoing = new ArrayList<>(gateway1.getOutgoing());
+        outgoing.addAll(gateway2.getOutgoing());
+        for (var x : outgoing) {
+            if (!alreadyAddedTargets.add(x.getTarget())) {
+                graph.removeEdge(x);
+                continue;
             }
 
-
-            alreadyAddedTargets.add(x.getTarget());
             x.setSource(newGateway);
             newGateway.getOutgoing().add(x);
-        });
+        }
+        return newGateway;
     }
 
     /**
@@ -402,42 +415,49 @@ public class BPMNCreator {
      *
      * @param gateway1 Gateway 1
      * @param gateway2 Gateway 2
-     * @param <T>      Type of the gateways
+     * @return The new gateway
      */
-    private <T extends Gateway> void mergeOutgoing(T gateway1, T gateway2) {
+    private Node mergeOutgoing(Node gateway1, Node gateway2) {
         var newGateway = createMergeGateway(gateway1, gateway2);
 
         gateway1.getOutgoing().forEach(x -> {
             x.setSource(newGateway);
             newGateway.getOutgoing().add(x);
         });
+        gateway1.getOutgoing().clear();
 
-        gateway2.getOutgoing().forEach(x -> {
-            x.getTarget().getIncoming().remove(x);
-            process.removeChildElement(x);
-        });
+        new ArrayList<>(gateway2.getOutgoing()).forEach(graph::removeEdge);
+
+        Set<Node> alreadyAddedSources = new HashSet<>();
+
+        List<Edge> incoming = new ArrayList<>(gateway1.getIncoming());
+        incoming.addAll(gateway2.getIncoming());
+        for (var x : incoming) {
+            if (!alreadyAddedSources.add(x.getSource())) {
+                graph.removeEdge(x);
+                continue;
+            }
 
-        Stream.concat(gateway1.getIncoming().stream(), gateway2.getIncoming().stream()).forEach(x -> {
             x.setTarget(newGateway);
             newGateway.getIncoming().add(x);
-        });
+        }
+        return newGateway;
     }
 
     /**
      * Bundles the incoming connections of this node into a new node
      *
      * @param affectedNode Affected node
-     * @param elementClass Class of the new node (usally ParallelGateway)
-     * @param <T>          Type of the new node
+     * @param type         Type of the new node (usally parallel gateway)
      */
-    private <T extends FlowNode> void bundleIncoming(FlowNode affectedNode, Class<T> elementClass) {
+    private void bundleIncoming(Node affectedNode, NodeType type) {
         var incoming = new ArrayList<>(affectedNode.getIncoming());
         if (incoming.size() < 2) {
             return;
         }
 
-        var newParallelGateway = createElement(process, affectedNode.getId() + "-prfx-bndl-in", elementClass);
-        createSequenceFlow(newParallelGateway, affectedNode);
+        var newParallelGateway = graph.addNode(affectedNode.getId() + "-prfx-bndl-in", type, null);
+        graph.addEdge(newParallelGateway, affectedNode);
         incoming.forEach(x -> {
             x.setTarget(newParallelGateway);
             newParallelGateway.getIncoming().add(x);
@@ -449,17 +469,16 @@ public class BPMNCreator {
      * Bundles the outgoing connections of this node into a new node
      *
      * @param affectedNode Affected node
-     * @param elementClass Class of the new node (usally ParallelGateway)
-     * @param <T>          Type of the new node
+     * @param type         Type of the new node (usally parallel gateway)
      */
-    private <T extends FlowNode> void bundleOutgoing(FlowNode affectedNode, Class<T> elementClass) {
+    private void bundleOutgoing(Node affectedNode, NodeType type) {
         var outgoing = new ArrayList<>(affectedNode.getOutgoing());
         if (outgoing.size() < 2) {
             return;
         }
 
-        var newParallelGateway = createElement(process, affectedNode.getId() + "-prfx-bndl-out", elementClass);
-        createSequenceFlow(affectedNode, newParallelGateway);
+        var newParallelGateway = graph.addNode(affectedNode.getId() + "-prfx-bndl-out", type, null);
+        graph.addEdge(affectedNode, newParallelGateway);
         outgoing.forEach(x -> {
             x.setSource(newParallelGateway);
             newParallelGateway.getOutgoing().add(x);
@@ -467,11 +486,6 @@ public class BPMNCreator {
         });
     }
 
-
-    private SequenceFlow createSequenceFlow(FlowNode from, FlowNode to) {
-        return BPMNUtil.createSequenceFlow(process, from, to);
-    }
-
     /**
      * Adds a some conditions to all XOR-Splits having more than one output
      *
@@ -494,8 +508,95 @@ public class BPMNCreator {
         });
     }
 
+    /**
+     * Type of a gateway and the multiset of its neighbours on one side, independent of the order of the edges
+     */
+    private static final class Signature {
+        private final NodeType type;
+        private final int[] neighbours;
+        private final int hash;
+
+        private Signature(NodeType type, int[] neighbours) {
+            this.type = type;
+            this.neighbours = neighbours;
+            this.hash = 31 * type.hashCode() + Arrays.hashCode(neighbours);
+        }
+
+        static Signature of(NodeType type, List<Edge> edges, Function<Edge, Node> neighbour) {
+            var neighbours = new int[edges.size()];
+            for (int x = 0; x < neighbours.length; x++) {
+                neighbours[x] = neighbour.apply(edges.get(x)).getIndex();
+            }
+            Arrays.sort(neighbours);
+            return new Signature(type, neighbours);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Signature signature = (Signature) o;
+            return type == signature.type && Arrays.equals(neighbours, signature.neighbours);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Buckets gateways by their signature. Gateways must be removed before their signature changes.
+     */
+    private static final class GatewayIndex {
+        private final Function<Node, Signature> signatureFunction;
+        private final Map<Signature, Set<Node>> buckets = new HashMap<>();
+        private final Map<Node, Signature> signatures = new HashMap<>();
+
+        private GatewayIndex(Function<Node, Signature> signatureFunction) {
+            this.signatureFunction = signatureFunction;
+        }
+
+        /**
+         * @return the bucket of the gateway, including the gateway itself
+         */
+        Set<Node> add(Node gateway) {
+            var signature = signatureFunction.apply(gateway);
+            signatures.put(gateway, signature);
+            // buckets keep the creation order, so the merges are deterministic
+            var bucket = buckets.computeIfAbsent(signature, x -> new TreeSet<>(Comparator.comparingInt(Node::getIndex)));
+            bucket.add(gateway);
+            return bucket;
+        }
+
+        void remove(Node gateway) {
+            var signature = signatures.remove(gateway);
+            if (signature == null) {
+                return;
+            }
+            var bucket = buckets.get(signature);
+            bucket.remove(gateway);
+            if (bucket.isEmpty()) {
+                buckets.remove(signature);
+            }
+        }
+
+        /**
+         * @return the first other gateway with the same signature or null if there is none
+         */
+        Node findOther(Node gateway) {
+            var bucket = buckets.get(signatures.get(gateway));
+            for (var other : bucket) {
+                if (other != gateway) {
+                    return other;
+                }
+            }
+            return null;
+        }
+    }
+
     private static BpmnModelInstance doLayout(BpmnModelInstance modelInstance) {
-        return new FluentLayouter().layout(modelInstance);
+        return new SugiyamaLayouter().layout(modelInstance);
     }
 }
 
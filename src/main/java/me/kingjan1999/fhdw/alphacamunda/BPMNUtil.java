@@ -18,6 +18,32 @@ public class BPMNUtil {
         return element;
     }
 
+    /**
+     * Like {@link #createElement(BpmnModelElementInstance, String, Class)}, but without its costs
+     * growing with the size of the model: setting the id through the model API searches all elements
+     * for references to update and adding a child searches its position among the other children.
+     * Neither is needed for a new element appended as last child, e.g. to the flow elements of a process.
+     *
+     * @param parentElement Parent of the new element
+     * @param id            Id of the new element, must not contain whitespace
+     * @param name          Name of the new element or null
+     * @param elementClass  Type of the new element
+     * @param <T>           Type of the new element
+     * @return the new element
+     */
+    public static <T extends BpmnModelElementInstance> T appendElement(BpmnModelElementInstance parentElement,
+                                                                 String id,
+                                                                 String name,
+                                                                 Class<T> elementClass) {
+        T element = parentElement.getModelInstance().newInstance(elementClass);
+        element.getDomElement().setIdAttribute("id", id);
+        if (name != null) {
+            element.setAttributeValue("name", name);
+        }
+        parentElement.getDomElement().appendChild(element.getDomElement());
+        return element;
+    }
+
     public static SequenceFlow createSequenceFlow(Process process, FlowNode from, FlowNode to) {
         String identifier = from.getId() + "-" + to.getId();
         SequenceFlow sequenceFlow = createElement(process, identifier, SequenceFlow.class);
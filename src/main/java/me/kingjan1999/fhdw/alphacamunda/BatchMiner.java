@@ -0,0 +1,235 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import org.camunda.bpm.model.bpmn.Bpmn;
+
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Mines many XES files concurrently.
+ * <p>
+ * Every file is a job running the whole pipeline: parse, discover the relations,
+ * create and layout the BPMN model and write it to a file.
+ * Jobs are isolated from each other: each one has its own {@link ActivityRegistry},
+ * {@link RelationBuilder} and {@link BPMNCreator}, so nothing but the (thread-safe) {@link XesParser} is shared.
+ * <p>
+ * At most {@code maxConcurrentJobs} jobs are in flight at once, {@link #submit(Path, Path)}
+ * blocks until one of them is done. This bounds the memory used by the parsed logs,
+ * independent of the queue of the executor.
+ * <p>
+ * A failing job does not affect the others, its exception is reported in its {@link Result}.
+ */
+public class BatchMiner {
+
+    private static final String BPMN_EXTENSION = ".bpmn";
+
+    private final XesParser parser;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    /**
+     * @param executor          Executor running the jobs
+     * @param maxConcurrentJobs Maximum number of jobs submitted to the executor at once
+     */
+    public BatchMiner(ExecutorService executor, int maxConcurrentJobs) {
+        this(XesParser.getDefault(), executor, maxConcurrentJobs);
+    }
+
+    /**
+     * @param parser            Parser for the input files
+     * @param executor          Executor running the jobs
+     * @param maxConcurrentJobs Maximum number of jobs submitted to the executor at once
+     */
+    public BatchMiner(XesParser parser, ExecutorService executor, int maxConcurrentJobs) {
+        if (maxConcurrentJobs < 1) {
+            throw new IllegalArgumentException("maxConcurrentJobs must be positive");
+        }
+        this.parser = parser;
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrentJobs);
+    }
+
+    /**
+     * Submits a job mining the given file.
+     * Blocks while the maximum number of jobs is in flight.
+     *
+     * @param input  Path of the (compressed) XES file
+     * @param output Path of the BPMN file to write
+     * @return Future of the result, which never completes exceptionally
+     * @throws InterruptedException Thrown if interrupted while waiting for a free slot
+     */
+    public Future<Result> submit(Path input, Path output) throws InterruptedException {
+        permits.acquire();
+        try {
+            return executor.submit(() -> {
+                try {
+                    return mine(input, output);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Mines all given files and writes the models into the output directory.
+     * The model of {@code log.xes} or {@code log.xes.gz} is written to {@code log.bpmn},
+     * so the names of the input files should be distinct.
+     *
+     * @param inputs          Paths of the (compressed) XES files
+     * @param outputDirectory Existing directory for the BPMN files
+     * @return The results in the order of the inputs
+     * @throws InterruptedException Thrown if interrupted while waiting for the jobs
+     */
+    public List<Result> mineAll(Collection<Path> inputs, Path outputDirectory) throws InterruptedException {
+        List<Future<Result>> futures = new ArrayList<>(inputs.size());
+        for (var input : inputs) {
+            futures.add(submit(input, outputDirectory.resolve(getOutputFileName(input))));
+        }
+
+        List<Result> results = new ArrayList<>(futures.size());
+        for (var future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                // mine() catches everything but errors
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private Result mine(Path input, Path output) {
+        var result = new Result(input, output);
+        try {
+            long start = System.nanoTime();
+            var registry = new ActivityRegistry();
+            var log = parser.parse(input, registry);
+            long parsed = System.nanoTime();
+            result.parseTime = Duration.ofNanos(parsed - start);
+
+            var builder = new RelationBuilder(registry);
+            builder.evaluate(log);
+            long discovered = System.nanoTime();
+            result.discoverTime = Duration.ofNanos(discovered - parsed);
+
+            var modelInstance = BPMNCreator.createAndLayout(builder);
+            long created = System.nanoTime();
+            result.createTime = Duration.ofNanos(created - discovered);
+
+            Bpmn.writeModelToFile(output.toFile(), modelInstance);
+            result.writeTime = Duration.ofNanos(System.nanoTime() - created);
+        } catch (InterruptedIOException e) {
+            Thread.currentThread().interrupt();
+            result.failure = e;
+        } catch (Exception e) {
+            result.failure = e;
+        }
+        return result;
+    }
+
+    /**
+     * @return name of the BPMN file for the given XES file
+     */
+    static String getOutputFileName(Path input) {
+        var name = input.getFileName().toString();
+        var lowerCaseName = name.toLowerCase(Locale.ROOT);
+        if (lowerCaseName.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+            lowerCaseName = lowerCaseName.substring(0, lowerCaseName.length() - 3);
+        }
+        if (lowerCaseName.endsWith(".xes")) {
+            name = name.substring(0, name.length() - 4);
+        }
+        return name + BPMN_EXTENSION;
+    }
+
+    /**
+     * Outcome of a single job.
+     * The time of every stage is measured separately, stages not reached because of a failure take no time.
+     */
+    public static class Result {
+        private final Path input;
+        private final Path output;
+        private Duration parseTime = Duration.ZERO;
+        private Duration discoverTime = Duration.ZERO;
+        private Duration createTime = Duration.ZERO;
+        private Duration writeTime = Duration.ZERO;
+        private Exception failure;
+
+        private Result(Path input, Path output) {
+            this.input = input;
+            this.output = output;
+        }
+
+        public Path getInput() {
+            return input;
+        }
+
+        public Path getOutput() {
+            return output;
+        }
+
+        /**
+         * @return time for parsing the input file
+         */
+        public Duration getParseTime() {
+            return parseTime;
+        }
+
+        /**
+         * @return time for discovering the relations
+         */
+        public Duration getDiscoverTime() {
+            return discoverTime;
+        }
+
+        /**
+         * @return time for creating and layouting the model
+         */
+        public Duration getCreateTime() {
+            return createTime;
+        }
+
+        /**
+         * @return time for writing the output file
+         */
+        public Duration getWriteTime() {
+            return writeTime;
+        }
+
+        public Duration getTotalTime() {
+            return parseTime.plus(discoverTime).plus(createTime).plus(writeTime);
+        }
+
+        /**
+         * @return the exception which aborted the job or null if it succeeded
+         */
+        public Exception getFailure() {
+            return failure;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        @Override
+        public String toString() {
+            return input + (isSuccess() ? " -> " + output : " failed: " + failure) + " in " + getTotalTime().toMillis() + " ms";
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.Activity;
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.EncodedLog;
+import me.kingjan1999.fhdw.alphacamunda.domain.Event;
+import me.kingjan1999.fhdw.alphacamunda.domain.Log;
+import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads logs written by {@link BinaryLogWriter}.
+ * Files are memory-mapped and must not be larger than 2 GB.
+ */
+public class BinaryLogReader {
+
+    private BinaryLogReader() {}
+
+    /**
+     * Reads a complete log
+     *
+     * @param path     Path of the file
+     * @param registry Registry for the activities of the log
+     * @return The log
+     * @throws IOException Thrown if the file cannot be read, is no binary log or has an unsupported version
+     */
+    public static Log read(Path path, ActivityRegistry registry) throws IOException {
+        return read(map(path), registry);
+    }
+
+    /**
+     * Reads a complete log
+     *
+     * @param buffer   Buffer containing the log, starting at its position
+     * @param registry Registry for the activities of the log
+     * @return The log
+     * @throws IOException Thrown if the buffer contains no binary log or an unsupported version
+     */
+    public static Log read(ByteBuffer buffer, ActivityRegistry registry) throws IOException {
+        try {
+            var header = readHeader(buffer, registry);
+            var traceLengths = column(buffer);
+            var activities = column(buffer);
+            var resources = column(buffer);
+            var timestamps = column(buffer);
+
+            List<Trace> traces = new ArrayList<>(header.traceCount);
+            long previousTimestamp = 0;
+            for (int trace = 0; trace < header.traceCount; trace++) {
+                int length = Math.toIntExact(readVarint(traceLengths));
+                List<Event> events = new ArrayList<>(length);
+                for (int x = 0; x < length; x++) {
+                    var activity = header.activities[Math.toIntExact(readVarint(activities))];
+
+                    int resourceIndex = Math.toIntExact(readVarint(resources));
+                    var resource = resourceIndex == 0 ? null : header.resources[resourceIndex - 1];
+
+                    long encodedTimestamp = readVarint(timestamps);
+                    Instant timestamp = null;
+                    if (encodedTimestamp != 0) {
+                        long zigzag = encodedTimestamp - 1;
+                        previousTimestamp += (zigzag >>> 1) ^ -(zigzag & 1);
+                        timestamp = Instant.ofEpochMilli(previousTimestamp);
+                    }
+
+                    events.add(new Event(activity, resource, timestamp));
+                }
+                traces.add(new Trace(events));
+            }
+            return new Log(traces, registry);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | ArithmeticException e) {
+            throw new IOException("Corrupt binary log", e);
+        }
+    }
+
+    /**
+     * Reads only the activity sequences of a log, resources and timestamps are skipped
+     *
+     * @param path     Path of the file
+     * @param registry Registry for the activities of the log
+     * @return The encoded log
+     * @throws IOException Thrown if the file cannot be read, is no binary log or has an unsupported version
+     */
+    public static EncodedLog readEncoded(Path path, ActivityRegistry registry) throws IOException {
+        return readEncoded(map(path), registry);
+    }
+
+    /**
+     * Reads only the activity sequences of a log, resources and timestamps are skipped
+     *
+     * @param buffer   Buffer containing the log, starting at its position
+     * @param registry Registry for the activities of the log
+     * @return The encoded log
+     * @throws IOException Thrown if the buffer contains no binary log or an unsupported version
+     */
+    public static EncodedLog readEncoded(ByteBuffer buffer, ActivityRegistry registry) throws IOException {
+        try {
+            var header = readHeader(buffer, registry);
+            var traceLengths = column(buffer);
+            var activities = column(buffer);
+
+            var activityIds = new int[header.activities.length];
+            for (int x = 0; x < activityIds.length; x++) {
+                activityIds[x] = header.activities[x].getId();
+            }
+
+            var offsets = new int[header.traceCount + 1];
+            for (int trace = 0; trace < header.traceCount; trace++) {
+                offsets[trace + 1] = Math.addExact(offsets[trace], Math.toIntExact(readVarint(traceLengths)));
+            }
+            if (offsets[header.traceCount] != header.eventCount) {
+                throw new IOException("Corrupt binary log");
+            }
+
+            var events = new int[header.eventCount];
+            for (int x = 0; x < events.length; x++) {
+                events[x] = activityIds[Math.toIntExact(readVarint(activities))];
+            }
+            return new EncodedLog(registry, events, offsets, header.traceCount);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | ArithmeticException e) {
+            throw new IOException("Corrupt binary log", e);
+        }
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary logs larger than 2 GB are not supported");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static Header readHeader(ByteBuffer buffer, ActivityRegistry registry) throws IOException {
+        var magic = new byte[BinaryLogWriter.MAGIC.length];
+        if (buffer.remaining() < magic.length + Integer.BYTES) {
+            throw new IOException("Not a binary log");
+        }
+        buffer.get(magic);
+        if (!Arrays.equals(magic, BinaryLogWriter.MAGIC)) {
+            throw new IOException("Not a binary log");
+        }
+        int version = buffer.getInt();
+        if (version < 1 || version > BinaryLogWriter.VERSION) {
+            throw new IOException("Unsupported binary log version " + version);
+        }
+
+        var header = new Header();
+        var activityNames = readStrings(buffer);
+        header.activities = new Activity[activityNames.length];
+        for (int x = 0; x < activityNames.length; x++) {
+            header.activities[x] = registry.getActivity(activityNames[x]);
+        }
+        header.resources = readStrings(buffer);
+        header.traceCount = Math.toIntExact(readVarint(buffer));
+        header.eventCount = Math.toIntExact(readVarint(buffer));
+        return header;
+    }
+
+    /**
+     * @return the next column, the position of the buffer is moved behind it
+     */
+    private static ByteBuffer column(ByteBuffer buffer) {
+        int length = Math.toIntExact(buffer.getLong());
+        var column = buffer.slice();
+        column.limit(length);
+        buffer.position(buffer.position() + length);
+        return column;
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        var strings = new String[Math.toIntExact(readVarint(buffer))];
+        for (int x = 0; x < strings.length; x++) {
+            var bytes = new byte[Math.toIntExact(readVarint(buffer))];
+            buffer.get(bytes);
+            strings[x] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            if (shift > 63) {
+                throw new ArithmeticException("Varint too long");
+            }
+            current = buffer.get();
+            value |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+
+    private static class Header {
+        private Activity[] activities;
+        private String[] resources;
+        private int traceCount;
+        private int eventCount;
+    }
+}
@@ -0,0 +1,192 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.Activity;
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sparse directly-follows counts of a range of traces, used for the partitions of a {@link DirectlyFollowsTask}.
+ * Unlike a {@link DirectlyFollowsMatrix}, memory and merging are proportional to the number of distinct pairs
+ * instead of the square of the number of activities.
+ * <p>
+ * The counts are kept in an open-addressing hash table keyed by the ids of both activities.
+ * Start and end counts are stored as pairs with the virtual activity {@value #NONE}.
+ * Activities are recorded in the order of their first occurrence, so merging partitions in trace order
+ * registers the activities in the same order as adding the traces one by one.
+ */
+class DirectlyFollowsCounts {
+
+    static final int NONE = -1;
+
+    private static final long EMPTY = -1L;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ActivityRegistry registry;
+    private final List<Activity> activities;
+    private Activity[] activitiesById;
+
+    private long[] keys;
+    private long[] counts;
+    private int size;
+
+    DirectlyFollowsCounts(ActivityRegistry registry) {
+        this.registry = registry;
+        this.activities = new ArrayList<>();
+        this.activitiesById = new Activity[INITIAL_CAPACITY];
+        this.keys = new long[INITIAL_CAPACITY];
+        Arrays.fill(keys, EMPTY);
+        this.counts = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds all directly-follows pairs of the given trace
+     *
+     * @param trace Trace to add
+     * @throws IllegalArgumentException if an activity of the trace belongs to a different registry
+     */
+    void addTrace(Trace trace) {
+        var events = trace.getEvents();
+        if (events.isEmpty()) {
+            return;
+        }
+
+        for (var event : events) {
+            record(event.getActivity());
+        }
+        int previous = events.get(0).getActivity().getId();
+        add(NONE, previous, 1);
+        for (int x = 1; x < events.size(); x++) {
+            int current = events.get(x).getActivity().getId();
+            add(previous, current, 1);
+            previous = current;
+        }
+        add(previous, NONE, 1);
+    }
+
+    /**
+     * Adds all counts of the other counts, which must cover the traces following the ones added so far
+     *
+     * @param other Counts over activities of the same registry
+     */
+    void addAll(DirectlyFollowsCounts other) {
+        for (var activity : other.activities) {
+            record(activity);
+        }
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.keys[slot] != EMPTY) {
+                add(other.keys[slot], other.counts[slot]);
+            }
+        }
+    }
+
+    /**
+     * @return the activities in the order of their first occurrence
+     */
+    List<Activity> getActivities() {
+        return activities;
+    }
+
+    /**
+     * @return number of slots of the hash table, see {@link #getFrom(int)}
+     */
+    int slots() {
+        return keys.length;
+    }
+
+    /**
+     * @param slot Slot of the hash table
+     * @return true if the slot holds a pair
+     */
+    boolean isUsed(int slot) {
+        return keys[slot] != EMPTY;
+    }
+
+    /**
+     * @param slot Used slot of the hash table
+     * @return id of the first activity of the pair or {@value #NONE} for start counts
+     */
+    int getFrom(int slot) {
+        return (int) (keys[slot] >> 32);
+    }
+
+    /**
+     * @param slot Used slot of the hash table
+     * @return id of the second activity of the pair or {@value #NONE} for end counts
+     */
+    int getTo(int slot) {
+        return (int) keys[slot];
+    }
+
+    /**
+     * @param slot Used slot of the hash table
+     * @return how often the pair occurred
+     */
+    long getCount(int slot) {
+        return counts[slot];
+    }
+
+    private void record(Activity activity) {
+        int id = activity.getId();
+        if (id >= 0 && id < activitiesById.length && activitiesById[id] == activity) {
+            return;
+        }
+        if (id < 0 || id >= registry.size() || registry.getActivity(id) != activity
+                || (id < activitiesById.length && activitiesById[id] != null)) {
+            throw new IllegalArgumentException("Activity " + activity + " belongs to a different registry");
+        }
+        if (id >= activitiesById.length) {
+            activitiesById = Arrays.copyOf(activitiesById, Math.max(id + 1, activitiesById.length * 2));
+        }
+        activitiesById[id] = activity;
+        activities.add(activity);
+    }
+
+    private void add(int from, int to, long count) {
+        add(((long) from << 32) | (to & 0xffffffffL), count);
+    }
+
+    private void add(long key, long count) {
+        int slot = find(keys, key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            // the slot of the new key may have moved
+            slot = find(keys, key);
+        }
+        counts[slot] += count;
+    }
+
+    private void grow() {
+        var oldKeys = keys;
+        var oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        counts = new long[oldKeys.length * 2];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                int newSlot = find(keys, oldKeys[slot]);
+                keys[newSlot] = oldKeys[slot];
+                counts[newSlot] = oldCounts[slot];
+            }
+        }
+    }
+
+    /**
+     * @return the slot holding the key or the empty slot where it belongs, the table must not be full
+     */
+    private static int find(long[] keys, long key) {
+        int mask = keys.length - 1;
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
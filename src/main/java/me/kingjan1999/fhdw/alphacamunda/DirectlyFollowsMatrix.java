@@ -0,0 +1,368 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.Activity;
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.EncodedLog;
+import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense directly-follows matrix (a > b) over all activities of a log.
+ * Every activity gets a consecutive index, the number of times
+ * b directly followed a is stored at [index(a), index(b)].
+ * Indices are looked up by the {@link Activity#getId() id} of the activities,
+ * so all activities must belong to the same {@link ActivityRegistry}.
+ * <p>
+ * Additionally, the number of traces starting and ending with each activity is kept.
+ * <p>
+ * The matrix is filled in a single pass over the traces,
+ * traces are not referenced after they have been added.
+ * <p>
+ * Traces can be removed again (see {@link #removeTrace(Trace)}).
+ * Activities which are new or for which a count changed from or to zero
+ * are recorded, so relations derived from the matrix can be updated incrementally
+ * (see {@link #pollChanged()}).
+ */
+class DirectlyFollowsMatrix {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ActivityRegistry registry;
+    private final List<Activity> activities;
+    private int[] indicesById;
+
+    private int capacity;
+    private long[] counts;
+    private long[] startCounts;
+    private long[] endCounts;
+
+    private final BitSet changed;
+
+    DirectlyFollowsMatrix(ActivityRegistry registry) {
+        this.registry = registry;
+        this.activities = new ArrayList<>();
+        this.indicesById = new int[INITIAL_CAPACITY];
+        Arrays.fill(indicesById, -1);
+        this.capacity = INITIAL_CAPACITY;
+        this.counts = new long[matrixSize(capacity)];
+        this.startCounts = new long[capacity];
+        this.endCounts = new long[capacity];
+        this.changed = new BitSet();
+    }
+
+    /**
+     * Adds all directly-follows pairs of the given trace to the matrix
+     *
+     * @param trace Trace to add
+     * @throws IllegalArgumentException if an activity of the trace belongs to a different registry
+     */
+    void addTrace(Trace trace) {
+        var events = trace.getEvents();
+        if (events.isEmpty()) {
+            return;
+        }
+
+        // all activities are checked before the first count is changed, so a rejected trace leaves the matrix intact
+        for (var event : events) {
+            checkRegistry(event.getActivity());
+        }
+        int previous = register(events.get(0).getActivity().getId());
+        increment(startCounts, previous, previous, previous, 1);
+        for (int x = 1; x < events.size(); x++) {
+            int current = register(events.get(x).getActivity().getId());
+            increment(counts, previous * capacity + current, previous, current, 1);
+            previous = current;
+        }
+        increment(endCounts, previous, previous, previous, 1);
+    }
+
+    /**
+     * Removes all directly-follows pairs of a trace which has been added before.
+     * Activities stay registered even if they no longer occur.
+     *
+     * @param trace Trace to remove
+     * @throws IllegalArgumentException if the trace has not been added before
+     */
+    void removeTrace(Trace trace) {
+        var events = trace.getEvents();
+        if (events.isEmpty()) {
+            return;
+        }
+
+        // everything is checked before the first count is changed, so a failed removal leaves the matrix intact
+        int[] indices = new int[events.size()];
+        for (int x = 0; x < indices.length; x++) {
+            indices[x] = indexOfAdded(events.get(x).getActivity());
+        }
+        int first = indices[0];
+        int last = indices[indices.length - 1];
+        Map<Integer, Integer> removedPairs = new HashMap<>();
+        for (int x = 1; x < indices.length; x++) {
+            removedPairs.merge(indices[x - 1] * capacity + indices[x], 1, Integer::sum);
+        }
+        boolean added = startCounts[first] > 0 && endCounts[last] > 0;
+        for (var pair : removedPairs.entrySet()) {
+            added &= counts[pair.getKey()] >= pair.getValue();
+        }
+        if (!added) {
+            throw new IllegalArgumentException("Trace has not been added before");
+        }
+
+        increment(startCounts, first, first, first, -1);
+        for (int x = 1; x < indices.length; x++) {
+            increment(counts, indices[x - 1] * capacity + indices[x], indices[x - 1], indices[x], -1);
+        }
+        increment(endCounts, last, last, last, -1);
+    }
+
+    /**
+     * Adds all directly-follows pairs of an encoded trace to the matrix
+     *
+     * @param activityIds Activity ids, as in {@link EncodedLog#getActivityIds()}
+     * @param from        Position of the first event of the trace
+     * @param to          Position after the last event of the trace
+     */
+    void addTrace(int[] activityIds, int from, int to) {
+        addTrace(activityIds, from, to, 1);
+    }
+
+    /**
+     * Adds all directly-follows pairs of an encoded trace to the matrix,
+     * as if the trace occurred count times
+     *
+     * @param activityIds Activity ids, as in {@link EncodedLog#getActivityIds()}
+     * @param from        Position of the first event of the trace
+     * @param to          Position after the last event of the trace
+     * @param count       Number of occurrences of the trace
+     */
+    void addTrace(int[] activityIds, int from, int to, long count) {
+        if (from >= to) {
+            return;
+        }
+
+        int previous = register(activityIds[from]);
+        increment(startCounts, previous, previous, previous, count);
+        for (int x = from + 1; x < to; x++) {
+            int current = register(activityIds[x]);
+            increment(counts, previous * capacity + current, previous, current, count);
+            previous = current;
+        }
+        increment(endCounts, previous, previous, previous, count);
+    }
+
+    /**
+     * Adds all counts of a partition to this matrix.
+     * Activities unknown to this matrix are appended in the order of their first occurrence in the partition.
+     *
+     * @param other Counts over activities of the same registry
+     * @throws IllegalArgumentException if the counts contain activities of a different registry
+     */
+    void addAll(DirectlyFollowsCounts other) {
+        var otherActivities = other.getActivities();
+        for (var activity : otherActivities) {
+            checkRegistry(activity);
+        }
+        // registering may grow the matrix, so all activities are registered before the first position is computed
+        for (var activity : otherActivities) {
+            register(activity.getId());
+        }
+
+        for (int slot = 0; slot < other.slots(); slot++) {
+            if (!other.isUsed(slot)) {
+                continue;
+            }
+            int from = other.getFrom(slot);
+            int to = other.getTo(slot);
+            if (from == DirectlyFollowsCounts.NONE) {
+                int index = indicesById[to];
+                increment(startCounts, index, index, index, other.getCount(slot));
+            } else if (to == DirectlyFollowsCounts.NONE) {
+                int index = indicesById[from];
+                increment(endCounts, index, index, index, other.getCount(slot));
+            } else {
+                int fromIndex = indicesById[from];
+                int toIndex = indicesById[to];
+                increment(counts, fromIndex * capacity + toIndex, fromIndex, toIndex, other.getCount(slot));
+            }
+        }
+    }
+
+    /**
+     * @param activity Activity to look up
+     * @return index of the activity or -1 if it never occurred
+     */
+    int indexOf(Activity activity) {
+        int id = activity.getId();
+        if (id < 0 || id >= indicesById.length) {
+            return -1;
+        }
+        int index = indicesById[id];
+        return index >= 0 && activities.get(index) == activity ? index : -1;
+    }
+
+    /**
+     * @param from Index of the first activity
+     * @param to   Index of the second activity
+     * @return true if the second activity directly followed the first one at least once
+     */
+    boolean follows(int from, int to) {
+        return from >= 0 && to >= 0 && counts[from * capacity + to] > 0;
+    }
+
+    /**
+     * @param from Index of the first activity
+     * @param to   Index of the second activity
+     * @return how often the second activity directly followed the first one
+     */
+    long count(int from, int to) {
+        return counts[from * capacity + to];
+    }
+
+    /**
+     * @param index Index of the activity
+     * @return how many traces started with the activity
+     */
+    long startCount(int index) {
+        return startCounts[index];
+    }
+
+    /**
+     * @param index Index of the activity
+     * @return how many traces ended with the activity
+     */
+    long endCount(int index) {
+        return endCounts[index];
+    }
+
+    /**
+     * @param index Index of the activity
+     * @return true if the activity occurs in any trace currently in the matrix
+     */
+    boolean occurs(int index) {
+        if (startCounts[index] > 0) {
+            return true;
+        }
+        for (int from = 0; from < activities.size(); from++) {
+            if (counts[from * capacity + index] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param index Index of the activity
+     * @return the activity with the given index
+     */
+    Activity getActivity(int index) {
+        return activities.get(index);
+    }
+
+    /**
+     * Returns all activities which were added or for which a count changed from or
+     * to zero since the last call
+     *
+     * @return changed activities, in index order
+     */
+    List<Activity> pollChanged() {
+        List<Activity> changedActivities = new ArrayList<>(changed.cardinality());
+        for (int index = changed.nextSetBit(0); index >= 0; index = changed.nextSetBit(index + 1)) {
+            changedActivities.add(activities.get(index));
+        }
+        changed.clear();
+        return changedActivities;
+    }
+
+    /**
+     * @return number of distinct activities in the matrix
+     */
+    int size() {
+        return activities.size();
+    }
+
+    private void increment(long[] array, int position, int from, int to, long count) {
+        if (count == 0) {
+            return;
+        }
+        long newCount = array[position] + count;
+        if (newCount < 0) {
+            throw new IllegalArgumentException("Trace has not been added before");
+        }
+        if (array[position] == 0 || newCount == 0) {
+            changed.set(from);
+            changed.set(to);
+        }
+        array[position] = newCount;
+    }
+
+    private int indexOfAdded(Activity activity) {
+        int index = indexOf(activity);
+        if (index < 0) {
+            throw new IllegalArgumentException("Trace has not been added before");
+        }
+        return index;
+    }
+
+    private void checkRegistry(Activity activity) {
+        if (indexOf(activity) >= 0) {
+            return;
+        }
+        int id = activity.getId();
+        if (id < 0 || id >= registry.size() || registry.getActivity(id) != activity) {
+            throw new IllegalArgumentException("Activity " + activity + " belongs to a different registry");
+        }
+    }
+
+    private int register(int id) {
+        if (id < indicesById.length) {
+            int index = indicesById[id];
+            if (index >= 0) {
+                return index;
+            }
+        } else {
+            int oldLength = indicesById.length;
+            indicesById = Arrays.copyOf(indicesById, Math.max(id + 1, oldLength * 2));
+            Arrays.fill(indicesById, oldLength, indicesById.length, -1);
+        }
+
+        int newIndex = activities.size();
+        if (newIndex == capacity) {
+            grow();
+        }
+        activities.add(registry.getActivity(id));
+        indicesById[id] = newIndex;
+        changed.set(newIndex);
+        return newIndex;
+    }
+
+    private void grow() {
+        int newCapacity = capacity * 2;
+        var newCounts = new long[matrixSize(newCapacity)];
+        for (int row = 0; row < capacity; row++) {
+            System.arraycopy(counts, row * capacity, newCounts, row * newCapacity, capacity);
+        }
+        this.capacity = newCapacity;
+        this.counts = newCounts;
+        this.startCounts = Arrays.copyOf(startCounts, newCapacity);
+        this.endCounts = Arrays.copyOf(endCounts, newCapacity);
+    }
+
+    /**
+     * @param capacity Number of rows and columns
+     * @return number of cells of a matrix with the given capacity
+     * @throws IllegalStateException if the matrix would not fit into an array
+     */
+    static int matrixSize(int capacity) {
+        try {
+            return Math.multiplyExact(capacity, capacity);
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException("Too many activities for a dense directly-follows matrix: " + capacity, e);
+        }
+    }
+}
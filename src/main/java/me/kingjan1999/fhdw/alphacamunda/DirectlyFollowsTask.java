@@ -0,0 +1,50 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the directly-follows pairs of a range of traces.
+ * Ranges larger than the partition size are split in halves,
+ * the partial counts are merged in trace order.
+ * The counts are sparse (see {@link DirectlyFollowsCounts}), so a partition
+ * doesn't allocate a dense matrix over all activities.
+ */
+class DirectlyFollowsTask extends RecursiveTask<DirectlyFollowsCounts> {
+
+    private final ActivityRegistry registry;
+    private final List<Trace> traces;
+    private final int from;
+    private final int to;
+    private final int partitionSize;
+
+    DirectlyFollowsTask(ActivityRegistry registry, List<Trace> traces, int from, int to, int partitionSize) {
+        this.registry = registry;
+        this.traces = traces;
+        this.from = from;
+        this.to = to;
+        this.partitionSize = partitionSize;
+    }
+
+    @Override
+    protected DirectlyFollowsCounts compute() {
+        if (to - from <= partitionSize) {
+            var counts = new DirectlyFollowsCounts(registry);
+            for (int x = from; x < to; x++) {
+                counts.addTrace(traces.get(x));
+            }
+            return counts;
+        }
+
+        int middle = (from + to) >>> 1;
+        var left = new DirectlyFollowsTask(registry, traces, from, middle, partitionSize);
+        var right = new DirectlyFollowsTask(registry, traces, middle, to, partitionSize);
+        right.fork();
+        var counts = left.compute();
+        counts.addAll(right.join());
+        return counts;
+    }
+}
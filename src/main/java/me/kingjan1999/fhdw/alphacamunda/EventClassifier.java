@@ -0,0 +1,153 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.Activity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static me.kingjan1999.fhdw.alphacamunda.domain.xml.EventAdapter.ACTIVITY_KEY;
+
+/**
+ * Determines the {@link Activity} of an event from one or more of its attributes,
+ * like the {@code <classifier>} declarations of XES.
+ * For several keys, the values are joined with {@value #SEPARATOR}.
+ * Separators and backslashes within the values are escaped with a backslash
+ * and missing values are written as {@value #MISSING_VALUE},
+ * so different values never result in the same activity.
+ * <p>
+ * Instances are immutable.
+ */
+public class EventClassifier {
+
+    public static final String SEPARATOR = "+";
+    public static final String MISSING_VALUE = "\\?";
+
+    private static final char ESCAPE = '\\';
+
+    private static final EventClassifier DEFAULT = new EventClassifier(new String[]{ACTIVITY_KEY});
+
+    private final String[] keys;
+
+    private EventClassifier(String[] keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * @return the classifier using the {@value me.kingjan1999.fhdw.alphacamunda.domain.xml.EventAdapter#ACTIVITY_KEY}
+     * attribute
+     */
+    public static EventClassifier getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param keys Keys of the attributes forming the activity, in order
+     * @return the classifier
+     */
+    public static EventClassifier of(String... keys) {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("A classifier needs at least one key");
+        }
+        for (var key : keys) {
+            if (key == null || key.isEmpty()) {
+                throw new IllegalArgumentException("Classifier keys must not be empty");
+            }
+        }
+        return new EventClassifier(keys.clone());
+    }
+
+    /**
+     * Parses the keys attribute of a XES classifier declaration.
+     * Keys are separated by whitespace, keys containing whitespace are enclosed in single quotes.
+     *
+     * @param keys Value of the keys attribute, e.g. {@code concept:name lifecycle:transition}
+     * @return the classifier
+     */
+    public static EventClassifier ofXes(String keys) {
+        List<String> parsedKeys = new ArrayList<>();
+        int position = 0;
+        while (position < keys.length()) {
+            char current = keys.charAt(position);
+            if (Character.isWhitespace(current)) {
+                position++;
+            } else if (current == '\'') {
+                int end = keys.indexOf('\'', position + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated key in " + keys);
+                }
+                parsedKeys.add(keys.substring(position + 1, end));
+                position = end + 1;
+            } else {
+                int end = position;
+                while (end < keys.length() && !Character.isWhitespace(keys.charAt(end))) {
+                    end++;
+                }
+                parsedKeys.add(keys.substring(position, end));
+                position = end;
+            }
+        }
+        return of(parsedKeys.toArray(new String[0]));
+    }
+
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /**
+     * @return number of keys
+     */
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * @param key Key of an attribute
+     * @return position of the key in this classifier or -1 if it is not part of it
+     */
+    int indexOf(String key) {
+        for (int x = 0; x < keys.length; x++) {
+            if (keys[x].equals(key)) {
+                return x;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param values Values of the keys in order, null for missing values
+     * @return the name of the activity or null if all values are missing
+     */
+    String activityName(String[] values) {
+        if (values.length == 1) {
+            return values[0];
+        }
+
+        boolean present = false;
+        var builder = new StringBuilder();
+        for (int x = 0; x < values.length; x++) {
+            if (x > 0) {
+                builder.append(SEPARATOR);
+            }
+            if (values[x] == null) {
+                builder.append(MISSING_VALUE);
+                continue;
+            }
+            present = true;
+            for (int position = 0; position < values[x].length(); position++) {
+                char current = values[x].charAt(position);
+                if (current == ESCAPE || current == SEPARATOR.charAt(0)) {
+                    builder.append(ESCAPE);
+                }
+                builder.append(current);
+            }
+        }
+        return present ? builder.toString() : null;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(" ", keys);
+    }
+}
@@ -0,0 +1,259 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.Log;
+import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Parses large XES files on several threads.
+ * <p>
+ * The file is memory-mapped and split into chunks at {@code <trace} elements.
+ * Every chunk is parsed separately, prefixed with the header of the document
+ * (everything before the first trace) and closed with {@code </log>},
+ * so each chunk is a valid XES document on its own.
+ * The traces of all chunks are concatenated in document order.
+ * <p>
+ * The file must use an ASCII compatible encoding (like UTF-8) and must not contain
+ * {@code <trace} inside comments or CDATA sections.
+ * A single trace must not be larger than 2 GB.
+ */
+public class ParallelXesParser {
+
+    private static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+    private static final int SEARCH_WINDOW_SIZE = 1024 * 1024;
+
+    private static final byte[] TRACE_START = "<trace".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LOG_END = "</log>".getBytes(StandardCharsets.US_ASCII);
+
+    private final XesParser parser;
+    private final ExecutorService executor;
+    private final int chunkSize;
+
+    /**
+     * @param executor Executor parsing the chunks
+     */
+    public ParallelXesParser(ExecutorService executor) {
+        this(executor, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param executor  Executor parsing the chunks
+     * @param chunkSize Minimum number of bytes per chunk
+     */
+    public ParallelXesParser(ExecutorService executor, int chunkSize) {
+        this(XesParser.getDefault(), executor, chunkSize);
+    }
+
+    /**
+     * @param parser    Parser for the chunks
+     * @param executor  Executor parsing the chunks
+     * @param chunkSize Minimum number of bytes per chunk
+     */
+    public ParallelXesParser(XesParser parser, ExecutorService executor, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.parser = parser;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Parses the given XES file to an activity log
+     * whose activities are interned in the given registry.
+     * Activity ids are assigned in the order the threads encounter the activities,
+     * the order of the traces is the order of the document.
+     * Compressed files cannot be split and are parsed sequentially by {@link XesParser#parse(Path, ActivityRegistry)}.
+     *
+     * @param path     Path of the XES file
+     * @param registry Registry for the activities of the log
+     * @return The parsed log
+     * @throws IOException        Thrown if the file cannot be read
+     * @throws XMLStreamException Thrown if the document is malformed
+     */
+    public Log parse(Path path, ActivityRegistry registry) throws IOException, XMLStreamException {
+        if (XesParser.isGzip(path)) {
+            return parser.parse(path, registry);
+        }
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long firstTrace = find(channel, TRACE_START, 0);
+            if (firstTrace < 0) {
+                return new Log(Collections.emptyList(), registry);
+            }
+
+            var header = new byte[Math.toIntExact(firstTrace)];
+            channel.map(FileChannel.MapMode.READ_ONLY, 0, firstTrace).get(header);
+
+            List<Future<List<Trace>>> chunks = new ArrayList<>();
+            // Future.cancel doesn't interrupt tasks of a ForkJoinPool, so running chunks check this flag instead
+            var cancelled = new AtomicBoolean();
+            try {
+                long chunkStart = firstTrace;
+                while (chunkStart < size) {
+                    long nextTrace = chunkStart + chunkSize < size ? find(channel, TRACE_START, chunkStart + chunkSize) : -1;
+                    long chunkEnd = nextTrace < 0 ? size : nextTrace;
+                    if (chunkEnd - chunkStart > Integer.MAX_VALUE) {
+                        throw new IOException("Trace at position " + chunkStart + " is larger than 2 GB");
+                    }
+
+                    var buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkEnd - chunkStart);
+                    boolean last = nextTrace < 0;
+                    chunks.add(executor.submit(() -> parseChunk(header, buffer, last, registry, cancelled)));
+                    chunkStart = chunkEnd;
+                }
+
+                List<Trace> traces = new ArrayList<>();
+                for (var chunk : chunks) {
+                    traces.addAll(await(chunk));
+                }
+                return new Log(traces, registry);
+            } finally {
+                // after a failure, the remaining chunks are not needed anymore
+                cancelled.set(true);
+                chunks.forEach(x -> x.cancel(true));
+            }
+        }
+    }
+
+    private List<Trace> parseChunk(byte[] header, MappedByteBuffer buffer, boolean last,
+                                   ActivityRegistry registry, AtomicBoolean cancelled) throws XMLStreamException {
+        // the last chunk already contains the end of the document
+        InputStream chunk = new SequenceInputStream(
+                new ByteArrayInputStream(header), new ByteBufferInputStream(buffer, cancelled));
+        if (!last) {
+            chunk = new SequenceInputStream(chunk, new ByteArrayInputStream(LOG_END));
+        }
+
+        List<Trace> traces = new ArrayList<>();
+        parser.parse(chunk, registry, traces::add);
+        return traces;
+    }
+
+    private static List<Trace> await(Future<List<Trace>> chunk) throws IOException, XMLStreamException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing");
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            // a ForkJoinPool wraps checked exceptions of the chunks in a plain RuntimeException,
+            // which may be wrapped once more when it is rethrown in another thread
+            while (cause.getClass() == RuntimeException.class && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof XMLStreamException) {
+                throw (XMLStreamException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Finds the next start tag of an element with the given name prefix, e.g. {@code <trace},
+     * which is not the prefix of a longer element name
+     *
+     * @return position of the tag or -1 if there is none
+     */
+    private static long find(FileChannel channel, byte[] tag, long from) throws IOException {
+        long size = channel.size();
+        long windowStart = from;
+        while (windowStart < size) {
+            // windows overlap, so tags crossing a window border are found as well
+            long windowSize = Math.min(SEARCH_WINDOW_SIZE, size - windowStart);
+            var window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+            for (int x = 0; x < windowSize; x++) {
+                if (matches(window, x, tag)) {
+                    return windowStart + x;
+                }
+            }
+            if (windowStart + windowSize >= size) {
+                break;
+            }
+            windowStart += windowSize - tag.length;
+        }
+        return -1;
+    }
+
+    private static boolean matches(ByteBuffer window, int position, byte[] tag) {
+        if (position + tag.length >= window.limit()) {
+            return false;
+        }
+        for (int x = 0; x < tag.length; x++) {
+            if (window.get(position + x) != tag[x]) {
+                return false;
+            }
+        }
+        byte next = window.get(position + tag.length);
+        return next == '>' || next == '/' || next == ' ' || next == '\t' || next == '\r' || next == '\n';
+    }
+
+    /**
+     * Reads the remaining bytes of a buffer until the parsing is cancelled
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+        private final AtomicBoolean cancelled;
+
+        private ByteBufferInputStream(ByteBuffer buffer, AtomicBoolean cancelled) {
+            this.buffer = buffer;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkCancelled();
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            checkCancelled();
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        private void checkCancelled() throws InterruptedIOException {
+            if (cancelled.get() || Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Parsing cancelled");
+            }
+        }
+    }
+}
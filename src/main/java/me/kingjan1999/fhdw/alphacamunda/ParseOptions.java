@@ -0,0 +1,102 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.Event;
+
+/**
+ * Selects which attributes of the events are read by a {@link XesParser}.
+ * The activity is always read, attributes which are not selected
+ * are skipped while reading the document and are null in the resulting {@link Event events}.
+ * <p>
+ * The activity is determined by an {@link EventClassifier}, either given directly
+ * or by the name of a classifier declared in the header of each document.
+ * <p>
+ * Instances are immutable.
+ */
+public class ParseOptions {
+
+    private static final ParseOptions ALL = new ParseOptions(true, true, EventClassifier.getDefault(), null);
+    private static final ParseOptions ACTIVITIES_ONLY = new ParseOptions(false, false, EventClassifier.getDefault(), null);
+
+    private final boolean resources;
+    private final boolean timestamps;
+    private final EventClassifier classifier;
+    private final String classifierName;
+
+    private ParseOptions(boolean resources, boolean timestamps, EventClassifier classifier, String classifierName) {
+        this.resources = resources;
+        this.timestamps = timestamps;
+        this.classifier = classifier;
+        this.classifierName = classifierName;
+    }
+
+    /**
+     * @return options reading activity, resource and timestamp of every event
+     */
+    public static ParseOptions all() {
+        return ALL;
+    }
+
+    /**
+     * @return options reading only the activity of every event, which is all the alpha algorithm needs
+     */
+    public static ParseOptions activitiesOnly() {
+        return ACTIVITIES_ONLY;
+    }
+
+    /**
+     * @param resources true if the resources should be read
+     * @return a copy of these options
+     */
+    public ParseOptions withResources(boolean resources) {
+        return new ParseOptions(resources, timestamps, classifier, classifierName);
+    }
+
+    /**
+     * @param timestamps true if the timestamps should be read
+     * @return a copy of these options
+     */
+    public ParseOptions withTimestamps(boolean timestamps) {
+        return new ParseOptions(resources, timestamps, classifier, classifierName);
+    }
+
+    /**
+     * @param classifier Classifier determining the activities
+     * @return a copy of these options
+     */
+    public ParseOptions withClassifier(EventClassifier classifier) {
+        return new ParseOptions(resources, timestamps, classifier, null);
+    }
+
+    /**
+     * Uses the classifier with the given name declared in the {@code <classifier>} elements of the document.
+     * Parsing fails if a document does not declare it.
+     *
+     * @param classifierName Name of the classifier
+     * @return a copy of these options
+     */
+    public ParseOptions withClassifier(String classifierName) {
+        return new ParseOptions(resources, timestamps, null, classifierName);
+    }
+
+    public boolean isResources() {
+        return resources;
+    }
+
+    public boolean isTimestamps() {
+        return timestamps;
+    }
+
+    /**
+     * @return the classifier or null if a classifier declared by the document is used
+     */
+    public EventClassifier getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * @return the name of the classifier declared by the document or null if {@link #getClassifier()} is used
+     */
+    public String getClassifierName() {
+        return classifierName;
+    }
+}
@@ -1,40 +1,145 @@
 package me.kingjan1999.fhdw.alphacamunda;
 
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.EncodedLog;
 import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
 import me.kingjan1999.fhdw.alphacamunda.domain.Log;
 
-import javax.xml.XMLConstants;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
+/**
+ * Static shortcuts for parsing XES documents with the {@link XesParser#getDefault() default parser}
+ */
 public class Parser {
 
     private Parser() {}
 
     /**
      * Parses the given inputstream containing XML to an activity log
+     * Uses a streaming parser which only reads the attributes needed for the events.
      *
      * @param xmlStream Stream containing valid XML data
      * @return The parsed log
-     * @throws JAXBException      Thrown if errors regarding JAXB are encountered
+     * @throws JAXBException      Kept for compatibility, not thrown by the streaming parser
      * @throws XMLStreamException Thrown if an unexpected processing error occurs
      */
     public static Log parse(InputStream xmlStream) throws JAXBException, XMLStreamException {
-        var factory = XMLInputFactory.newFactory();
-        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
-        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
-        XMLStreamReader xsr = factory.createXMLStreamReader(xmlStream);
-        XMLReaderWithoutNamespace xr = new XMLReaderWithoutNamespace(xsr);
+        return parse(xmlStream, ActivityRegistry.getDefault());
+    }
+
+    /**
+     * Parses the given inputstream containing XML to an activity log
+     * whose activities are interned in the given registry
+     *
+     * @param xmlStream Stream containing valid XML data
+     * @param registry  Registry for the activities of the log
+     * @return The parsed log
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     */
+    public static Log parse(InputStream xmlStream, ActivityRegistry registry) throws XMLStreamException {
+        return XesParser.getDefault().parse(xmlStream, registry);
+    }
+
+    /**
+     * Parses the given inputstream containing XML and passes every trace
+     * to the consumer as soon as it has been read.
+     * The parser keeps no reference to the traces, so the log never has to be in memory at once.
+     *
+     * @param xmlStream Stream containing valid XML data
+     * @param consumer  Consumer receiving the traces in document order
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     */
+    public static void parse(InputStream xmlStream, Consumer<Trace> consumer) throws XMLStreamException {
+        parse(xmlStream, ActivityRegistry.getDefault(), consumer);
+    }
 
-        JAXBContext jc = JAXBContext.newInstance(Log.class, Trace.class);
+    /**
+     * Parses the given inputstream containing XML and passes every trace
+     * to the consumer as soon as it has been read.
+     *
+     * @param xmlStream Stream containing valid XML data
+     * @param registry  Registry for the activities of the traces
+     * @param consumer  Consumer receiving the traces in document order
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     */
+    public static void parse(InputStream xmlStream, ActivityRegistry registry, Consumer<Trace> consumer)
+            throws XMLStreamException {
+        XesParser.getDefault().parse(xmlStream, registry, consumer);
+    }
 
-        Unmarshaller u = jc.createUnmarshaller();
-        Object o = u.unmarshal(xr);
-        return (Log) o;
+    /**
+     * Parses the given XES file to an activity log.
+     * Gzip compressed files (e.g. .xes.gz) are detected by their content and decompressed on the fly.
+     *
+     * @param path     Path of the (compressed) XES file
+     * @param registry Registry for the activities of the log
+     * @return The parsed log
+     * @throws IOException        Thrown if the file cannot be read
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     */
+    public static Log parse(Path path, ActivityRegistry registry) throws IOException, XMLStreamException {
+        return XesParser.getDefault().parse(path, registry);
+    }
+
+    /**
+     * Parses the given XES file and passes every trace to the consumer as soon as it has been read.
+     * Gzip compressed files (e.g. .xes.gz) are detected by their content and decompressed on the fly.
+     *
+     * @param path     Path of the (compressed) XES file
+     * @param registry Registry for the activities of the traces
+     * @param consumer Consumer receiving the traces in document order
+     * @throws IOException        Thrown if the file cannot be read
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     */
+    public static void parse(Path path, ActivityRegistry registry, Consumer<Trace> consumer)
+            throws IOException, XMLStreamException {
+        XesParser.getDefault().parse(path, registry, consumer);
+    }
+
+    /**
+     * Parses the given XES file on the common {@link ForkJoinPool}.
+     * Use a {@link ParallelXesParser} to parse on another executor.
+     *
+     * @param path     Path of the XES file
+     * @param registry Registry for the activities of the log
+     * @return The parsed log, with the traces in document order
+     * @throws IOException        Thrown if the file cannot be read
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     * @see ParallelXesParser
+     */
+    public static Log parseParallel(Path path, ActivityRegistry registry) throws IOException, XMLStreamException {
+        return new ParallelXesParser(ForkJoinPool.commonPool()).parse(path, registry);
+    }
+
+    /**
+     * Parses the given inputstream containing XML directly to an encoded log.
+     * Only the activities are read, no {@link Trace} or event objects are created.
+     *
+     * @param xmlStream Stream containing valid XML data
+     * @param registry  Registry for the activities of the log
+     * @return The parsed log
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     */
+    public static EncodedLog parseEncoded(InputStream xmlStream, ActivityRegistry registry) throws XMLStreamException {
+        return XesParser.getDefault().parseEncoded(xmlStream, registry);
+    }
+
+    /**
+     * Parses the given inputstream containing XML to an activity log
+     * using the JAXB bindings of {@link Log} and {@link Trace}
+     *
+     * @param xmlStream Stream containing valid XML data
+     * @return The parsed log
+     * @throws JAXBException      Thrown if errors regarding JAXB are encountered
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     */
+    public static Log parseJaxb(InputStream xmlStream) throws JAXBException, XMLStreamException {
+        return XesParser.getDefault().parseJaxb(xmlStream);
     }
 }
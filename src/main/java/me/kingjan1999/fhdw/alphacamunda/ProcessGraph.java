@@ -0,0 +1,291 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.Activity;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.instance.EndEvent;
+import org.camunda.bpm.model.bpmn.instance.ExclusiveGateway;
+import org.camunda.bpm.model.bpmn.instance.FlowNode;
+import org.camunda.bpm.model.bpmn.instance.ParallelGateway;
+import org.camunda.bpm.model.bpmn.instance.Process;
+import org.camunda.bpm.model.bpmn.instance.SequenceFlow;
+import org.camunda.bpm.model.bpmn.instance.ServiceTask;
+import org.camunda.bpm.model.bpmn.instance.StartEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lightweight mutable process graph used by {@link BPMNCreator} while building and simplifying a model.
+ * <p>
+ * Nodes and edges are plain objects, every node holds its incoming and outgoing edges in order.
+ * The graph is converted into a {@link BpmnModelInstance} once by {@link #toModelInstance()},
+ * so the simplification steps don't pay for the DOM behind the Camunda model.
+ * Nodes and edges keep their creation order, which is the order of the elements in the created model.
+ */
+class ProcessGraph {
+
+    /**
+     * Kind of a node and the BPMN element it is converted to
+     */
+    enum NodeType {
+        START_EVENT(StartEvent.class),
+        END_EVENT(EndEvent.class),
+        TASK(ServiceTask.class),
+        EXCLUSIVE_GATEWAY(ExclusiveGateway.class),
+        PARALLEL_GATEWAY(ParallelGateway.class);
+
+        private final Class<? extends FlowNode> elementClass;
+
+        NodeType(Class<? extends FlowNode> elementClass) {
+            this.elementClass = elementClass;
+        }
+
+        boolean isGateway() {
+            return this == EXCLUSIVE_GATEWAY || this == PARALLEL_GATEWAY;
+        }
+    }
+
+    static class Node {
+        private final int index;
+        private final String id;
+        private final String name;
+        private final NodeType type;
+        private final Activity activity;
+        private final List<Edge> incoming = new ArrayList<>(2);
+        private final List<Edge> outgoing = new ArrayList<>(2);
+        private boolean removed;
+
+        private Node(int index, String id, String name, NodeType type, Activity activity) {
+            this.index = index;
+            this.id = id;
+            this.name = name;
+            this.type = type;
+            this.activity = activity;
+        }
+
+        /**
+         * @return position of this node in the creation order, unique within the graph
+         */
+        int getIndex() {
+            return index;
+        }
+
+        String getId() {
+            return id;
+        }
+
+        NodeType getType() {
+            return type;
+        }
+
+        /**
+         * @return the activity of this node or null for gateways
+         */
+        Activity getActivity() {
+            return activity;
+        }
+
+        /**
+         * @return the incoming edges, which may be modified
+         */
+        List<Edge> getIncoming() {
+            return incoming;
+        }
+
+        /**
+         * @return the outgoing edges, which may be modified
+         */
+        List<Edge> getOutgoing() {
+            return outgoing;
+        }
+
+        boolean isRemoved() {
+            return removed;
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+
+    static class Edge {
+        private final String id;
+        private Node source;
+        private Node target;
+        private boolean removed;
+
+        private Edge(String id, Node source, Node target) {
+            this.id = id;
+            this.source = source;
+            this.target = target;
+        }
+
+        Node getSource() {
+            return source;
+        }
+
+        /**
+         * Changes the source, the edge lists of the nodes are not updated
+         */
+        void setSource(Node source) {
+            this.source = source;
+        }
+
+        Node getTarget() {
+            return target;
+        }
+
+        /**
+         * Changes the target, the edge lists of the nodes are not updated
+         */
+        void setTarget(Node target) {
+            this.target = target;
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final List<Edge> edges = new ArrayList<>();
+
+    /**
+     * @param name     Name of the node, the id is the name without whitespace (see {@link #toId(String)})
+     * @param type     Type of the node
+     * @param activity Activity of the node or null for gateways
+     * @return the new node
+     */
+    Node addNode(String name, NodeType type, Activity activity) {
+        var node = new Node(nodes.size(), toId(name), name, type, activity);
+        nodes.add(node);
+        return node;
+    }
+
+    /**
+     * Builds a valid XML id from a name. Whitespace is removed, every other character which may not appear
+     * at its position in an id (including the underscore) is written as {@code _<hex code>_},
+     * e.g. {@code a+complete} becomes {@code a_2b_complete}.
+     *
+     * @param name Name of a node
+     * @return the id of the node
+     */
+    static String toId(String name) {
+        var id = new StringBuilder(name.length());
+        for (int position = 0; position < name.length(); position++) {
+            char current = name.charAt(position);
+            if (Character.isWhitespace(current)) {
+                continue;
+            }
+            boolean valid = id.length() == 0 ? Character.isLetter(current)
+                    : Character.isLetterOrDigit(current) || current == '-' || current == '.';
+            if (valid) {
+                id.append(current);
+            } else {
+                id.append('_').append(Integer.toHexString(current)).append('_');
+            }
+        }
+        return id.toString();
+    }
+
+    /**
+     * Adds an edge and appends it to the outgoing edges of from and the incoming edges of to
+     *
+     * @return the new edge
+     */
+    Edge addEdge(Node from, Node to) {
+        var edge = new Edge(from.id + "-" + to.id, from, to);
+        edges.add(edge);
+        from.outgoing.add(edge);
+        to.incoming.add(edge);
+        return edge;
+    }
+
+    /**
+     * Removes the edge from the graph and from the edge lists of its current source and target
+     */
+    void removeEdge(Edge edge) {
+        edge.source.outgoing.remove(edge);
+        edge.target.incoming.remove(edge);
+        edge.removed = true;
+    }
+
+    /**
+     * Removes the node from the graph. Its edges must have been removed or reconnected before.
+     */
+    void removeNode(Node node) {
+        node.incoming.clear();
+        node.outgoing.clear();
+        node.removed = true;
+    }
+
+    /**
+     * @param type Type of the nodes
+     * @return a snapshot of all nodes of the given type in creation order
+     */
+    List<Node> getNodes(NodeType type) {
+        List<Node> result = new ArrayList<>();
+        for (var node : nodes) {
+            if (!node.removed && node.type == type) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a snapshot of all gateways in creation order
+     */
+    List<Node> getGateways() {
+        List<Node> result = new ArrayList<>();
+        for (var node : nodes) {
+            if (!node.removed && node.type.isGateway()) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates an executable process containing all nodes and edges of this graph
+     *
+     * @return the new model, without layout
+     */
+    BpmnModelInstance toModelInstance() {
+        var modelInstance = Bpmn.createExecutableProcess().done();
+        var process = modelInstance.getModelElementsByType(Process.class).iterator().next();
+
+        Map<Node, FlowNode> mappedNodes = new HashMap<>();
+        for (var node : nodes) {
+            if (!node.removed) {
+                var element = BPMNUtil.appendElement(process, node.id, node.name, node.type.elementClass);
+                mappedNodes.put(node, element);
+            }
+        }
+
+        Map<Edge, SequenceFlow> mappedEdges = new HashMap<>();
+        for (var edge : edges) {
+            if (!edge.removed) {
+                var sequenceFlow = BPMNUtil.appendElement(process, edge.id, edge.id, SequenceFlow.class);
+                sequenceFlow.setSource(mappedNodes.get(edge.source));
+                sequenceFlow.setTarget(mappedNodes.get(edge.target));
+                mappedEdges.put(edge, sequenceFlow);
+            }
+        }
+
+        // the order of the references is the order of the edge lists, not of the edges
+        for (var node : nodes) {
+            if (!node.removed) {
+                var element = mappedNodes.get(node);
+                node.incoming.forEach(x -> element.getIncoming().add(mappedEdges.get(x)));
+                node.outgoing.forEach(x -> element.getOutgoing().add(mappedEdges.get(x)));
+            }
+        }
+        return modelInstance;
+    }
+}
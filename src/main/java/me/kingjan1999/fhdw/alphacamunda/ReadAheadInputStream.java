@@ -0,0 +1,128 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads another stream on a separate thread, so reading (e.g. decompressing)
+ * the source and processing the data overlap.
+ * The source is read in blocks, at most a fixed number of blocks is buffered.
+ * <p>
+ * The source is closed by the reading thread once it is exhausted or this stream is closed.
+ */
+class ReadAheadInputStream extends InputStream {
+
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> blocks;
+    private final Thread readerThread;
+    private volatile IOException failure;
+
+    private byte[] block;
+    private int position;
+    private boolean closed;
+
+    /**
+     * @param source    Stream to read ahead
+     * @param blockSize Number of bytes per block
+     * @param maxBlocks Maximum number of blocks read ahead
+     */
+    ReadAheadInputStream(InputStream source, int blockSize, int maxBlocks) {
+        this.blocks = new ArrayBlockingQueue<>(maxBlocks);
+        this.readerThread = new Thread(() -> readSource(source, blockSize), "read-ahead");
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
+    }
+
+    private void readSource(InputStream source, int blockSize) {
+        boolean closedByConsumer = false;
+        try (source) {
+            while (true) {
+                var buffer = new byte[blockSize];
+                int length = source.readNBytes(buffer, 0, blockSize);
+                if (length > 0) {
+                    blocks.put(length == blockSize ? buffer : Arrays.copyOf(buffer, length));
+                }
+                if (length < blockSize) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            closedByConsumer = true;
+        } catch (IOException e) {
+            failure = e;
+        } catch (Throwable e) {
+            // e.g. an OutOfMemoryError or an unchecked exception of the source, the consumer must not wait forever
+            failure = new IOException("Reading ahead failed", e);
+        } finally {
+            if (!closedByConsumer) {
+                try {
+                    blocks.put(END);
+                } catch (InterruptedException e) {
+                    // closed by the consumer
+                }
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextBlock()) {
+            return -1;
+        }
+        return block[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!nextBlock()) {
+            return -1;
+        }
+        int count = Math.min(length, block.length - position);
+        System.arraycopy(block, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return block == null || block == END ? 0 : block.length - position;
+    }
+
+    /**
+     * Makes sure the current block has remaining bytes
+     *
+     * @return false if the end of the source has been reached
+     */
+    private boolean nextBlock() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (block != END && (block == null || position == block.length)) {
+            try {
+                block = blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for data");
+            }
+            position = 0;
+        }
+        if (block == END && failure != null) {
+            throw failure;
+        }
+        return block != END;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        readerThread.interrupt();
+    }
+}
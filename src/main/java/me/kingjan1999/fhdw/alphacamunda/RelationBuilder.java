@@ -1,23 +1,39 @@
 package me.kingjan1999.fhdw.alphacamunda;
 
 import me.kingjan1999.fhdw.alphacamunda.domain.Activity;
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.EncodedLog;
 import me.kingjan1999.fhdw.alphacamunda.domain.Log;
 import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
+import me.kingjan1999.fhdw.alphacamunda.domain.VariantTable;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Responsible for building the relations and sets
  * needed in phase 1 + 2
+ * <p>
+ * Traces can be added and removed incrementally via {@link #addTrace(Trace)}
+ * and {@link #removeTrace(Trace)}.
+ * Only the relations of activities whose directly-follows relation changed
+ * (and the alternatives and abstractions around them) are recomputed,
+ * so the results stay available without re-reading earlier traces.
+ * <p>
+ * Instances are not thread-safe.
  */
 public class RelationBuilder {
 
+    private static final int DEFAULT_PARTITION_SIZE = 1024;
+
     private final Set<Pair<Activity, Activity>> causality; // ->
     private final Set<Pair<Activity, Activity>> notSuccession; // #
     private final Set<Pair<Activity, Activity>> parallel; // ||
@@ -26,12 +42,30 @@ public class RelationBuilder {
     private final Set<Triple<Activity, Activity, Activity>> abstractions;
     private final Set<Pair<Activity, Activity>> remainingCausalities;
 
-    private Log log;
-    private Set<Activity> activityList;
+    // causality indexed by source and target
+    private final Map<Activity, Set<Activity>> successors;
+    private final Map<Activity, Set<Activity>> predecessors;
+    // alternatives indexed by their first activity, abstractions by their last activity
+    private final Map<Activity, List<Triple<Activity, Activity, Activity>>> alternativesBySource;
+    private final Map<Activity, List<Triple<Activity, Activity, Activity>>> abstractionsByTarget;
+    // number of alternatives and abstractions containing a causality
+    private final Map<Pair<Activity, Activity>, Integer> coveringTriples;
+
+    private final Set<Activity> activityList;
+
+    private ActivityRegistry registry;
+    private DirectlyFollowsMatrix directlyFollows;
 
     private boolean evaluated = false;
 
     public RelationBuilder() {
+        this(ActivityRegistry.getDefault());
+    }
+
+    /**
+     * @param registry Registry all activities of the added traces belong to
+     */
+    public RelationBuilder(ActivityRegistry registry) {
         this.causality = new HashSet<>();
         this.notSuccession = new HashSet<>();
         this.parallel = new HashSet<>();
@@ -39,34 +73,140 @@ public class RelationBuilder {
         this.alternatives = new HashSet<>();
         this.abstractions = new HashSet<>();
         this.remainingCausalities = new HashSet<>();
+
+        this.successors = new HashMap<>();
+        this.predecessors = new HashMap<>();
+        this.alternativesBySource = new HashMap<>();
+        this.abstractionsByTarget = new HashMap<>();
+        this.coveringTriples = new HashMap<>();
+
+        this.activityList = new HashSet<>();
+
+        reset(registry);
     }
 
     /**
      * Evaluates the given log and fills the fields of this
      * instance with the extracted data.
+     * Traces added before via {@link #addTrace(Trace)} are discarded.
+     * From now on, the {@link Log#getActivityRegistry() registry of the log} is used.
      *
      * @param log Log to evaluate
      */
     public void evaluate(Log log) {
-        this.log = log;
-        this.activityList = new HashSet<>();
+        reset(log.getActivityRegistry());
+        log.getTraces().forEach(this.directlyFollows::addTrace);
+        evaluate();
+    }
 
-        var alpha = Activity.getFakeStart();
-        var epsilon = Activity.getFakeEnd();
-        this.activityList.add(alpha);
-        this.activityList.add(epsilon);
+    /**
+     * Evaluates the given log like {@link #evaluate(Log)}, but builds the directly-follows
+     * relation in parallel using the common {@link ForkJoinPool}
+     *
+     * @param log Log to evaluate
+     */
+    public void evaluateParallel(Log log) {
+        evaluateParallel(log, ForkJoinPool.commonPool(), DEFAULT_PARTITION_SIZE);
+    }
 
-        for (Trace trace : this.log.getTraces()) {
-            trace.getEvents().forEach(current -> this.activityList.add(current.getActivity()));
+    /**
+     * Evaluates the given log like {@link #evaluate(Log)}, but builds the directly-follows
+     * relation in parallel. The traces are split into partitions, each partition is
+     * counted separately and the partial results are merged afterwards.
+     *
+     * @param log           Log to evaluate
+     * @param pool          Pool executing the partitions
+     * @param partitionSize Maximum number of traces per partition
+     */
+    public void evaluateParallel(Log log, ForkJoinPool pool, int partitionSize) {
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException("partitionSize must be positive");
+        }
+
+        reset(log.getActivityRegistry());
+        var traces = log.getTraces();
+        this.directlyFollows.addAll(pool.invoke(
+                new DirectlyFollowsTask(this.registry, traces, 0, traces.size(), partitionSize)));
+        evaluate();
+    }
 
-            this.causality.add(Pair.of(alpha, trace.getEvents().get(0).getActivity()));
-            this.causality.add(Pair.of(trace.getEvents().get(trace.getEvents().size() - 1).getActivity(), epsilon));
+    /**
+     * Evaluates the activity sequences of the given encoded log
+     * and fills the fields of this instance with the extracted data.
+     * Traces added before via {@link #addTrace(Trace)} are discarded.
+     * From now on, the {@link EncodedLog#getActivityRegistry() registry of the log} is used.
+     *
+     * @param log Encoded log to evaluate
+     */
+    public void evaluate(EncodedLog log) {
+        reset(log.getActivityRegistry());
+        var activityIds = log.getActivityIds();
+        for (int trace = 0; trace < log.getTraceCount(); trace++) {
+            this.directlyFollows.addTrace(activityIds, log.getTraceStart(trace), log.getTraceEnd(trace));
         }
+        evaluate();
+    }
+
+    /**
+     * Evaluates the trace variants of a log
+     * and fills the fields of this instance with the extracted data.
+     * Every variant is processed once, regardless of the number of traces following it.
+     * Traces added before via {@link #addTrace(Trace)} are discarded.
+     * From now on, the {@link VariantTable#getActivityRegistry() registry of the table} is used.
+     *
+     * @param variants Variants to evaluate
+     */
+    public void evaluate(VariantTable variants) {
+        reset(variants.getActivityRegistry());
+        for (var variant : variants.getVariants()) {
+            var activityIds = variant.getActivityIds();
+            this.directlyFollows.addTrace(activityIds, 0, activityIds.length, variant.getCount());
+        }
+        evaluate();
+    }
+
+    /**
+     * Adds the directly-follows pairs of a single trace.
+     * The trace is not referenced afterwards, so logs can be streamed
+     * trace by trace (e.g. using {@link Parser#parse(java.io.InputStream, java.util.function.Consumer)}).
+     * The relations are updated incrementally the next time they are requested.
+     * All activities must belong to the registry of this builder.
+     *
+     * @param trace Trace to add
+     * @throws IllegalArgumentException if an activity belongs to a different registry, the trace is not added then
+     */
+    public void addTrace(Trace trace) {
+        this.directlyFollows.addTrace(trace);
+        this.evaluated = true;
+    }
 
+    /**
+     * Removes the directly-follows pairs of a trace added before via {@link #addTrace(Trace)}.
+     * Like adding, the relations are updated incrementally the next time they are requested.
+     * Activities which no longer occur in any trace are dropped from all relations.
+     *
+     * @param trace Trace to remove, equal to an added trace
+     * @throws IllegalArgumentException if the trace has not been added before
+     */
+    public void removeTrace(Trace trace) {
+        this.directlyFollows.removeTrace(trace);
+    }
 
-        fillRelations();
-        fillQuantities();
+    /**
+     * Adds all given traces, like {@link #addTrace(Trace)}
+     *
+     * @param traces Traces to add
+     */
+    public void addAll(Iterable<Trace> traces) {
+        traces.forEach(this::addTrace);
+    }
 
+    /**
+     * Updates the relations with all traces added via {@link #addTrace(Trace)}.
+     * Calling this method is optional, the getters update the relations as well.
+     */
+    public void evaluate() {
+        update();
         this.evaluated = true;
     }
 
@@ -76,6 +216,7 @@ public class RelationBuilder {
      */
     public List<Pair<Activity, Activity>> getCausality() {
         assertEvaluated();
+        update();
         return new ArrayList<>(causality);
     }
 
@@ -84,6 +225,7 @@ public class RelationBuilder {
      * @throws IllegalStateException if the method is called before {@link RelationBuilder#evaluate(Log)}
      */
     public List<Pair<Activity, Activity>> getNotSuccession() {
+        update();
         return new ArrayList<>(notSuccession);
 
     }
@@ -93,6 +235,7 @@ public class RelationBuilder {
      * @throws IllegalStateException if the method is called before {@link RelationBuilder#evaluate(Log)}
      */
     public List<Pair<Activity, Activity>> getParallel() {
+        update();
         return new ArrayList<>(parallel);
     }
 
@@ -101,6 +244,7 @@ public class RelationBuilder {
      * @throws IllegalStateException if the method is called before {@link RelationBuilder#evaluate(Log)}
      */
     public List<Triple<Activity, Activity, Activity>> getAlternatives() {
+        update();
         return new ArrayList<>(alternatives);
     }
 
@@ -109,6 +253,7 @@ public class RelationBuilder {
      * @throws IllegalStateException if the method is called before {@link RelationBuilder#evaluate(Log)}
      */
     public List<Triple<Activity, Activity, Activity>> getAbstractions() {
+        update();
         return new ArrayList<>(abstractions);
 
     }
@@ -118,6 +263,7 @@ public class RelationBuilder {
      * and {@link #getAlternatives()}.
      */
     public List<Pair<Activity, Activity>> getRemainingCausalities() {
+        update();
         return new ArrayList<>(remainingCausalities);
     }
 
@@ -125,111 +271,237 @@ public class RelationBuilder {
      * @return List of all activites
      */
     public List<Activity> getActivityList() {
+        update();
         return new ArrayList<>(activityList);
     }
 
-    private void fillRelations() {
-        for (Activity currentA : this.activityList) {
-            for (Activity currentB : this.activityList) {
-                var pairAB = Pair.of(currentA, currentB);
-                if (findPair(currentA, currentB)) {
-                    if (findPair(currentB, currentA)) {
-                        this.parallel.add(pairAB);
-                    } else {
-                        this.causality.add(pairAB);
-                    }
-                } else if (!findPair(currentB, currentA)
-                        && !this.causality.contains(pairAB)
-                        && !this.causality.contains(Pair.of(currentB, currentA))) {
-                    this.notSuccession.add(pairAB);
-                }
+    /**
+     * Discards all traces and relations
+     *
+     * @param newRegistry Registry of the activities added from now on
+     */
+    private void reset(ActivityRegistry newRegistry) {
+        this.registry = newRegistry;
+        this.directlyFollows = new DirectlyFollowsMatrix(newRegistry);
+
+        this.causality.clear();
+        this.notSuccession.clear();
+        this.parallel.clear();
+        this.alternatives.clear();
+        this.abstractions.clear();
+        this.remainingCausalities.clear();
+
+        this.successors.clear();
+        this.predecessors.clear();
+        this.alternativesBySource.clear();
+        this.abstractionsByTarget.clear();
+        this.coveringTriples.clear();
+
+        this.activityList.clear();
+    }
+
+    /**
+     * Recomputes everything depending on activities changed in the directly-follows matrix
+     */
+    private void update() {
+        List<Activity> changed = this.directlyFollows.pollChanged();
+        if (changed.isEmpty() && !this.activityList.isEmpty()) {
+            return;
+        }
+
+        if (this.activityList.isEmpty()) {
+            changed.add(0, this.registry.getFakeEnd());
+            changed.add(0, this.registry.getFakeStart());
+        }
+        // activities of removed traces may no longer occur at all
+        List<Activity> removed = new ArrayList<>();
+        for (var activity : changed) {
+            if (occurs(activity)) {
+                this.activityList.add(activity);
+            } else if (this.activityList.remove(activity)) {
+                removed.add(activity);
             }
         }
-    }
 
-    private void fillQuantities() {
-        for (Activity currentA : this.activityList) {
-            // Alternatives
-            fillAlternatives(currentA);
-            // Abstraction
-            fillAbstractions(currentA);
+        // alternatives and abstractions depend on the causalities of their activities,
+        // so collect the neighbours before and after updating the relations
+        Set<Activity> alternativeSources = new LinkedHashSet<>(changed);
+        Set<Activity> abstractionTargets = new LinkedHashSet<>(changed);
+        collectNeighbours(changed, alternativeSources, abstractionTargets);
+
+        Set<Pair<Activity, Activity>> touchedCausalities = new HashSet<>();
+        fillRelations(changed, removed, touchedCausalities);
+        collectNeighbours(changed, alternativeSources, abstractionTargets);
+
+        for (var source : alternativeSources) {
+            fillAlternatives(source, touchedCausalities);
+        }
+        for (var target : abstractionTargets) {
+            fillAbstractions(target, touchedCausalities);
         }
 
         // remainingCausality
-        for (var currentCausality : this.causality) {
-            var left = currentCausality.getLeft();
-            var right = currentCausality.getRight();
-            var placeholder = Activity.getPlaceholderActivity();
-            if (!(findAlternative(left, right, placeholder) ||
-                    findAlternative(left, placeholder, right) ||
-                    findAbstraction(placeholder, left, right) ||
-                    findAbstraction(left, placeholder, right))) {
-                this.remainingCausalities.add(currentCausality);
+        for (var touched : touchedCausalities) {
+            if (this.causality.contains(touched) && !this.coveringTriples.containsKey(touched)) {
+                this.remainingCausalities.add(touched);
+            } else {
+                this.remainingCausalities.remove(touched);
             }
         }
     }
 
-    private void fillAbstractions(Activity currentA) {
-        var causalities = getCausality(Activity.getPlaceholderActivity(), currentA);
-        for (int x = 0; x < causalities.size(); x++) {
-            var currentCausality = causalities.get(x);
-            for (int y = (x + 1); y < causalities.size(); y++) {
-                var otherCausality = causalities.get(y);
-                if ((findNoSuccession(currentCausality.getLeft(), otherCausality.getLeft())) &&
-                        (!currentCausality.getLeft().equals(otherCausality.getLeft()))) {
-                    this.abstractions.add(Triple.of(currentCausality.getLeft(),
-                            otherCausality.getLeft(), currentCausality.getRight()));
-                }
-            }
+    private void collectNeighbours(List<Activity> changed,
+                                   Set<Activity> alternativeSources,
+                                   Set<Activity> abstractionTargets) {
+        for (var activity : changed) {
+            alternativeSources.addAll(this.predecessors.getOrDefault(activity, Set.of()));
+            abstractionTargets.addAll(this.successors.getOrDefault(activity, Set.of()));
         }
     }
 
-    private void fillAlternatives(Activity currentA) {
-        var causalities = getCausality(currentA, Activity.getPlaceholderActivity());
-        for (int x = 0; x < causalities.size(); x++) {
-            var currentCausality = causalities.get(x);
-            for (int y = (x + 1); y < causalities.size(); y++) {
-                var otherCausality = causalities.get(y);
-                if ((findNoSuccession(currentCausality.getRight(), otherCausality.getRight())) &&
-                        (!currentCausality.getRight().equals(otherCausality.getRight()))) {
-                    this.alternatives.add(Triple.of(currentCausality.getLeft(),
-                            currentCausality.getRight(), otherCausality.getRight()));
-                }
+    /**
+     * Recomputes causality, parallel and notSuccession for all pairs containing a changed activity
+     */
+    private void fillRelations(List<Activity> changed, List<Activity> removed,
+                               Set<Pair<Activity, Activity>> touchedCausalities) {
+        List<Activity> candidates = new ArrayList<>(this.activityList);
+        candidates.addAll(removed);
+        for (Activity currentA : changed) {
+            for (Activity currentB : candidates) {
+                updatePair(currentA, currentB, touchedCausalities);
+                updatePair(currentB, currentA, touchedCausalities);
             }
         }
     }
 
-    private boolean findPair(Activity a, Activity b) {
-        for (Trace currentTrace : this.log.getTraces()) {
-            for (int x = 0; x < currentTrace.getEvents().size() - 1; x++) {
-                if (currentTrace.getEvents().get(x).getActivity().equals(a)
-                        && currentTrace.getEvents().get(x + 1).getActivity().equals(b)) {
-                    return true;
-                }
+    private void updatePair(Activity currentA, Activity currentB, Set<Pair<Activity, Activity>> touchedCausalities) {
+        var pairAB = Pair.of(currentA, currentB);
+        // pairs with removed activities are not part of any relation
+        var present = this.activityList.contains(currentA) && this.activityList.contains(currentB);
+        var followsAB = present && follows(currentA, currentB);
+        var followsBA = present && follows(currentB, currentA);
+        var causalAB = present && isCausal(currentA, currentB, followsAB, followsBA);
+        var causalBA = present && isCausal(currentB, currentA, followsBA, followsAB);
+
+        if (setContained(this.causality, pairAB, causalAB)) {
+            if (causalAB) {
+                this.successors.computeIfAbsent(currentA, x -> new LinkedHashSet<>()).add(currentB);
+                this.predecessors.computeIfAbsent(currentB, x -> new LinkedHashSet<>()).add(currentA);
+            } else {
+                this.successors.get(currentA).remove(currentB);
+                this.predecessors.get(currentB).remove(currentA);
             }
+            touchedCausalities.add(pairAB);
+        }
+        setContained(this.parallel, pairAB, followsAB && followsBA);
+        setContained(this.notSuccession, pairAB, present && !followsAB && !followsBA && !causalAB && !causalBA);
+    }
+
+    private boolean occurs(Activity activity) {
+        if (activity.equals(this.registry.getFakeStart()) || activity.equals(this.registry.getFakeEnd())) {
+            return true;
+        }
+        int index = this.directlyFollows.indexOf(activity);
+        return index >= 0 && this.directlyFollows.occurs(index);
+    }
+
+    private boolean follows(Activity a, Activity b) {
+        return this.directlyFollows.follows(this.directlyFollows.indexOf(a), this.directlyFollows.indexOf(b));
+    }
+
+    private boolean isCausal(Activity a, Activity b, boolean followsAB, boolean followsBA) {
+        if (followsAB) {
+            return !followsBA;
+        }
+        if (a.equals(this.registry.getFakeStart())) {
+            int index = this.directlyFollows.indexOf(b);
+            return index >= 0 && this.directlyFollows.startCount(index) > 0;
+        }
+        if (b.equals(this.registry.getFakeEnd())) {
+            int index = this.directlyFollows.indexOf(a);
+            return index >= 0 && this.directlyFollows.endCount(index) > 0;
         }
         return false;
     }
 
-    private boolean findNoSuccession(Activity a, Activity b) {
-        var pair = Pair.of(a, b);
-        return notSuccession.contains(pair);
+    /**
+     * Adds the element to or removes it from the set
+     *
+     * @return true if the set changed
+     */
+    private static <T> boolean setContained(Set<T> set, T element, boolean contained) {
+        return contained ? set.add(element) : set.remove(element);
+    }
+
+    private void fillAbstractions(Activity currentA, Set<Pair<Activity, Activity>> touchedCausalities) {
+        var oldAbstractions = this.abstractionsByTarget.remove(currentA);
+        if (oldAbstractions != null) {
+            for (var abstraction : oldAbstractions) {
+                this.abstractions.remove(abstraction);
+                uncover(abstraction.getLeft(), abstraction.getRight(), touchedCausalities);
+                uncover(abstraction.getMiddle(), abstraction.getRight(), touchedCausalities);
+            }
+        }
+
+        List<Activity> currentPredecessors = new ArrayList<>(this.predecessors.getOrDefault(currentA, Set.of()));
+        for (int x = 0; x < currentPredecessors.size(); x++) {
+            var currentPredecessor = currentPredecessors.get(x);
+            for (int y = (x + 1); y < currentPredecessors.size(); y++) {
+                var otherPredecessor = currentPredecessors.get(y);
+                if (findNoSuccession(currentPredecessor, otherPredecessor) &&
+                        !currentPredecessor.equals(otherPredecessor)) {
+                    var abstraction = Triple.of(currentPredecessor, otherPredecessor, currentA);
+                    this.abstractions.add(abstraction);
+                    this.abstractionsByTarget.computeIfAbsent(currentA, a -> new ArrayList<>()).add(abstraction);
+                    cover(currentPredecessor, currentA, touchedCausalities);
+                    cover(otherPredecessor, currentA, touchedCausalities);
+                }
+            }
+        }
     }
 
-    private boolean findAlternative(Activity a, Activity b, Activity c) {
-        var triple = Triple.of(a, b, c);
-        return alternatives.stream().anyMatch(x -> x.equals(triple));
+    private void fillAlternatives(Activity currentA, Set<Pair<Activity, Activity>> touchedCausalities) {
+        var oldAlternatives = this.alternativesBySource.remove(currentA);
+        if (oldAlternatives != null) {
+            for (var alternative : oldAlternatives) {
+                this.alternatives.remove(alternative);
+                uncover(alternative.getLeft(), alternative.getMiddle(), touchedCausalities);
+                uncover(alternative.getLeft(), alternative.getRight(), touchedCausalities);
+            }
+        }
+
+        List<Activity> currentSuccessors = new ArrayList<>(this.successors.getOrDefault(currentA, Set.of()));
+        for (int x = 0; x < currentSuccessors.size(); x++) {
+            var currentSuccessor = currentSuccessors.get(x);
+            for (int y = (x + 1); y < currentSuccessors.size(); y++) {
+                var otherSuccessor = currentSuccessors.get(y);
+                if (findNoSuccession(currentSuccessor, otherSuccessor) &&
+                        !currentSuccessor.equals(otherSuccessor)) {
+                    var alternative = Triple.of(currentA, currentSuccessor, otherSuccessor);
+                    this.alternatives.add(alternative);
+                    this.alternativesBySource.computeIfAbsent(currentA, a -> new ArrayList<>()).add(alternative);
+                    cover(currentA, currentSuccessor, touchedCausalities);
+                    cover(currentA, otherSuccessor, touchedCausalities);
+                }
+            }
+        }
     }
 
-    private boolean findAbstraction(Activity a, Activity b, Activity c) {
-        var triple = Triple.of(a, b, c);
-        return abstractions.stream().anyMatch(x -> x.equals(triple));
+    private void cover(Activity a, Activity b, Set<Pair<Activity, Activity>> touchedCausalities) {
+        var pair = Pair.of(a, b);
+        this.coveringTriples.merge(pair, 1, Integer::sum);
+        touchedCausalities.add(pair);
     }
 
+    private void uncover(Activity a, Activity b, Set<Pair<Activity, Activity>> touchedCausalities) {
+        var pair = Pair.of(a, b);
+        this.coveringTriples.computeIfPresent(pair, (key, count) -> count == 1 ? null : count - 1);
+        touchedCausalities.add(pair);
+    }
 
-    private List<Pair<Activity, Activity>> getCausality(Activity a, Activity b) {
+    private boolean findNoSuccession(Activity a, Activity b) {
         var pair = Pair.of(a, b);
-        return causality.stream().filter(x -> x.equals(pair)).collect(Collectors.toList());
+        return notSuccession.contains(pair);
     }
 
     private void assertEvaluated() {
@@ -0,0 +1,154 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the relations of all traces completed within a time window.
+ * A trace is completed at the timestamp of its last event.
+ * <p>
+ * A sliding window contains all traces completed in [now - size, now],
+ * a tumbling window all traces completed in the current interval
+ * [k * size, (k + 1) * size) since the epoch.
+ * The window advances with the latest completion time seen or via {@link #advanceTo(Instant)}.
+ * <p>
+ * Expired traces are removed from the {@link RelationBuilder}, which updates
+ * only the relations affected by them. Advancing the window therefore costs
+ * time proportional to the number of expired traces, not to the number of traces in the window.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class WindowedRelationBuilder {
+
+    private final RelationBuilder relationBuilder;
+    private final long sizeMillis;
+    private final boolean tumbling;
+    private final PriorityQueue<CompletedTrace> traces;
+
+    private Instant now;
+
+    private WindowedRelationBuilder(ActivityRegistry registry, Duration size, boolean tumbling) {
+        if (size.isNegative() || size.isZero()) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+
+        this.relationBuilder = new RelationBuilder(registry);
+        this.sizeMillis = size.toMillis();
+        this.tumbling = tumbling;
+        this.traces = new PriorityQueue<>(Comparator.comparing(CompletedTrace::getCompletion));
+    }
+
+    /**
+     * @param registry Registry all activities of the added traces belong to
+     * @param size     Length of the window
+     * @return a builder keeping all traces completed within the last size
+     */
+    public static WindowedRelationBuilder sliding(ActivityRegistry registry, Duration size) {
+        return new WindowedRelationBuilder(registry, size, false);
+    }
+
+    /**
+     * @param registry Registry all activities of the added traces belong to
+     * @param size     Length of the window
+     * @return a builder keeping all traces completed within the current interval of the given size
+     */
+    public static WindowedRelationBuilder tumbling(ActivityRegistry registry, Duration size) {
+        return new WindowedRelationBuilder(registry, size, true);
+    }
+
+    /**
+     * Adds a completed trace. If it completed after all traces seen so far, the window advances.
+     *
+     * @param trace Trace to add, its last event must have a timestamp
+     * @return false if the trace completed before the current window and was ignored
+     */
+    public boolean addTrace(Trace trace) {
+        var events = trace.getEvents();
+        var completion = events.isEmpty() ? null : events.get(events.size() - 1).getTimestamp();
+        if (completion == null) {
+            throw new IllegalArgumentException("Trace without timestamp");
+        }
+
+        if (now != null && completion.isBefore(getWindowStart())) {
+            return false;
+        }
+
+        traces.add(new CompletedTrace(completion, trace));
+        relationBuilder.addTrace(trace);
+        advanceTo(completion);
+        return true;
+    }
+
+    /**
+     * Moves the window to the given time and removes all traces completed before the new window.
+     * The window never moves backwards.
+     *
+     * @param time Current time
+     */
+    public void advanceTo(Instant time) {
+        if (now != null && !time.isAfter(now)) {
+            return;
+        }
+
+        now = time;
+        var windowStart = getWindowStart();
+        while (!traces.isEmpty() && traces.peek().getCompletion().isBefore(windowStart)) {
+            relationBuilder.removeTrace(traces.poll().getTrace());
+        }
+    }
+
+    /**
+     * @return the start of the current window or null if no time has been seen yet
+     */
+    public Instant getWindowStart() {
+        if (now == null) {
+            return null;
+        }
+
+        long nowMillis = now.toEpochMilli();
+        if (tumbling) {
+            return Instant.ofEpochMilli(Math.floorDiv(nowMillis, sizeMillis) * sizeMillis);
+        }
+        return Instant.ofEpochMilli(nowMillis - sizeMillis);
+    }
+
+    /**
+     * @return number of traces in the current window
+     */
+    public int getTraceCount() {
+        return traces.size();
+    }
+
+    /**
+     * Attention: Traces must only be added through this class,
+     * otherwise they are never evicted.
+     *
+     * @return the relations of all traces in the current window
+     */
+    public RelationBuilder getRelationBuilder() {
+        return relationBuilder;
+    }
+
+    private static class CompletedTrace {
+        private final Instant completion;
+        private final Trace trace;
+
+        private CompletedTrace(Instant completion, Trace trace) {
+            this.completion = completion;
+            this.trace = trace;
+        }
+
+        private Instant getCompletion() {
+            return completion;
+        }
+
+        private Trace getTrace() {
+            return trace;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.EncodedLog;
+import me.kingjan1999.fhdw.alphacamunda.domain.Log;
+import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reusable parser for XES documents.
+ * <p>
+ * The expensive setup (XML factories, the JAXB context) is done once per instance
+ * and shared by all parse calls, so an instance should be kept and reused.
+ * Instances are thread-safe: factories and unmarshallers are held per thread,
+ * the JAXB context is created on first use of {@link #parseJaxb(InputStream)}.
+ * <p>
+ * The {@link ParseOptions} select the attributes read by the streaming methods,
+ * {@link #parseJaxb(InputStream)} always reads all attributes, but parses timestamps only when they are requested.
+ *
+ * @see Parser
+ */
+public class XesParser {
+
+    private static final int FILE_BUFFER_SIZE = 256 * 1024;
+    private static final int READ_AHEAD_BLOCKS = 4;
+
+    private static final XesParser DEFAULT = new XesParser();
+
+    private final ParseOptions options;
+    private final ThreadLocal<XMLInputFactory> inputFactories;
+    private final ThreadLocal<Unmarshaller> unmarshallers;
+    private volatile JAXBContext jaxbContext;
+
+    public XesParser() {
+        this(ParseOptions.all());
+    }
+
+    /**
+     * @param options Attributes to read
+     */
+    public XesParser(ParseOptions options) {
+        this.options = options;
+        this.inputFactories = ThreadLocal.withInitial(XesParser::createInputFactory);
+        this.unmarshallers = new ThreadLocal<>();
+    }
+
+    /**
+     * @return the parser used by the static methods of {@link Parser}
+     */
+    public static XesParser getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Parses the given inputstream containing XML to an activity log
+     * whose activities are interned in the given registry
+     *
+     * @param xmlStream Stream containing valid XML data
+     * @param registry  Registry for the activities of the log
+     * @return The parsed log
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     */
+    public Log parse(InputStream xmlStream, ActivityRegistry registry) throws XMLStreamException {
+        List<Trace> traces = new ArrayList<>();
+        parse(xmlStream, registry, traces::add);
+        return new Log(traces, registry);
+    }
+
+    /**
+     * Parses the given inputstream containing XML and passes every trace
+     * to the consumer as soon as it has been read.
+     * The parser keeps no reference to the traces, so the log never has to be in memory at once.
+     *
+     * @param xmlStream Stream containing valid XML data
+     * @param registry  Registry for the activities of the traces
+     * @param consumer  Consumer receiving the traces in document order
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     */
+    public void parse(InputStream xmlStream, ActivityRegistry registry, Consumer<Trace> consumer)
+            throws XMLStreamException {
+        XMLStreamReader xsr = createXMLStreamReader(xmlStream);
+        try {
+            var traceReader = new XesTraceReader(xsr, registry, options);
+            Trace trace;
+            while ((trace = traceReader.nextTrace()) != null) {
+                consumer.accept(trace);
+            }
+        } finally {
+            xsr.close();
+        }
+    }
+
+    /**
+     * Parses the given XES file to an activity log.
+     * Gzip compressed files (e.g. .xes.gz) are detected by their content and decompressed on the fly.
+     *
+     * @param path     Path of the (compressed) XES file
+     * @param registry Registry for the activities of the log
+     * @return The parsed log
+     * @throws IOException        Thrown if the file cannot be read
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     */
+    public Log parse(Path path, ActivityRegistry registry) throws IOException, XMLStreamException {
+        try (var xmlStream = openXes(path)) {
+            return parse(xmlStream, registry);
+        }
+    }
+
+    /**
+     * Parses the given XES file and passes every trace to the consumer as soon as it has been read.
+     * Gzip compressed files (e.g. .xes.gz) are detected by their content and decompressed on the fly.
+     *
+     * @param path     Path of the (compressed) XES file
+     * @param registry Registry for the activities of the traces
+     * @param consumer Consumer receiving the traces in document order
+     * @throws IOException        Thrown if the file cannot be read
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     */
+    public void parse(Path path, ActivityRegistry registry, Consumer<Trace> consumer)
+            throws IOException, XMLStreamException {
+        try (var xmlStream = openXes(path)) {
+            parse(xmlStream, registry, consumer);
+        }
+    }
+
+    /**
+     * Parses the given inputstream containing XML directly to an encoded log.
+     * Only the activities are read, no {@link Trace} or event objects are created.
+     *
+     * @param xmlStream Stream containing valid XML data
+     * @param registry  Registry for the activities of the log
+     * @return The parsed log
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     */
+    public EncodedLog parseEncoded(InputStream xmlStream, ActivityRegistry registry) throws XMLStreamException {
+        XMLStreamReader xsr = createXMLStreamReader(xmlStream);
+        try {
+            var traceReader = new XesTraceReader(xsr, registry, options);
+            var builder = new EncodedLog.Builder(registry);
+            while (traceReader.nextTrace(builder)) {
+                // all work is done by the reader
+            }
+            return builder.build();
+        } finally {
+            xsr.close();
+        }
+    }
+
+    /**
+     * Parses the given inputstream containing XML to an activity log
+     * using the JAXB bindings of {@link Log} and {@link Trace}
+     *
+     * @param xmlStream Stream containing valid XML data
+     * @return The parsed log
+     * @throws JAXBException      Thrown if errors regarding JAXB are encountered
+     * @throws XMLStreamException Thrown if an unexpected processing error occurs
+     */
+    public Log parseJaxb(InputStream xmlStream) throws JAXBException, XMLStreamException {
+        XMLStreamReader xsr = createXMLStreamReader(xmlStream);
+        try {
+            XMLReaderWithoutNamespace xr = new XMLReaderWithoutNamespace(xsr);
+            return (Log) getUnmarshaller().unmarshal(xr);
+        } finally {
+            xsr.close();
+        }
+    }
+
+    public ParseOptions getOptions() {
+        return options;
+    }
+
+    XMLStreamReader createXMLStreamReader(InputStream xmlStream) throws XMLStreamException {
+        return inputFactories.get().createXMLStreamReader(xmlStream);
+    }
+
+    private Unmarshaller getUnmarshaller() throws JAXBException {
+        var unmarshaller = unmarshallers.get();
+        if (unmarshaller == null) {
+            unmarshaller = getJaxbContext().createUnmarshaller();
+            unmarshallers.set(unmarshaller);
+        }
+        return unmarshaller;
+    }
+
+    private JAXBContext getJaxbContext() throws JAXBException {
+        var context = jaxbContext;
+        if (context == null) {
+            synchronized (this) {
+                context = jaxbContext;
+                if (context == null) {
+                    context = JAXBContext.newInstance(Log.class, Trace.class);
+                    jaxbContext = context;
+                }
+            }
+        }
+        return context;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        var factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+        return factory;
+    }
+
+    /**
+     * @return true if the file starts with the gzip magic number
+     */
+    static boolean isGzip(Path path) throws IOException {
+        try (var inputStream = Files.newInputStream(path)) {
+            return isGzip(inputStream);
+        }
+    }
+
+    private static boolean isGzip(InputStream inputStream) throws IOException {
+        return inputStream.read() == (GZIPInputStream.GZIP_MAGIC & 0xff)
+                && inputStream.read() == (GZIPInputStream.GZIP_MAGIC >>> 8);
+    }
+
+    /**
+     * Opens a XES file for reading. Compressed files are decompressed on a separate thread,
+     * so decompression and parsing overlap.
+     */
+    static InputStream openXes(Path path) throws IOException {
+        var inputStream = new BufferedInputStream(Files.newInputStream(path), FILE_BUFFER_SIZE);
+        try {
+            inputStream.mark(2);
+            boolean gzip = isGzip(inputStream);
+            inputStream.reset();
+            if (!gzip) {
+                return inputStream;
+            }
+            return new ReadAheadInputStream(new GZIPInputStream(inputStream, FILE_BUFFER_SIZE),
+                    FILE_BUFFER_SIZE, READ_AHEAD_BLOCKS);
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.EncodedLog;
+import me.kingjan1999.fhdw.alphacamunda.domain.Event;
+import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
+import me.kingjan1999.fhdw.alphacamunda.domain.xml.InstantAdapter;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static me.kingjan1999.fhdw.alphacamunda.domain.xml.EventAdapter.RESOURCE_KEY;
+import static me.kingjan1999.fhdw.alphacamunda.domain.xml.EventAdapter.TIMESTAMP_KEY;
+
+/**
+ * Pull parser reading traces from a XES document
+ * without building an intermediate object tree.
+ * <p>
+ * Only the attributes needed for an {@link Event} and selected by the {@link ParseOptions} are read,
+ * all other elements and attributes are skipped.
+ * <p>
+ * The activity is determined by the {@link EventClassifier} of the options.
+ * Classifiers selected by name are looked up in the {@code <classifier>} declarations
+ * before the first trace.
+ */
+class XesTraceReader {
+
+    private static final String TRACE_ELEMENT = "trace";
+    private static final String EVENT_ELEMENT = "event";
+    private static final String STRING_ELEMENT = "string";
+    private static final String DATE_ELEMENT = "date";
+    private static final String CLASSIFIER_ELEMENT = "classifier";
+    private static final String NAME_ATTRIBUTE = "name";
+    private static final String KEYS_ATTRIBUTE = "keys";
+    private static final String KEY_ATTRIBUTE = "key";
+    private static final String VALUE_ATTRIBUTE = "value";
+
+    private final XMLStreamReader reader;
+    private final ActivityRegistry registry;
+    private final ParseOptions options;
+    private final Map<String, String> declaredClassifiers;
+    // activity names by the values of the classifier keys, so the name is built once for every combination
+    private final Map<ValueTuple, String> activityNames;
+    private final ValueTuple probe;
+
+    // resolved when the first trace is reached
+    private EventClassifier classifier;
+    private String[] classifierValues;
+
+    // attributes of the event read last
+    private String activityName;
+    private String resource;
+    private Instant timestamp;
+
+    XesTraceReader(XMLStreamReader reader, ActivityRegistry registry, ParseOptions options) {
+        this.reader = reader;
+        this.registry = registry;
+        this.options = options;
+        this.declaredClassifiers = new HashMap<>();
+        this.activityNames = new HashMap<>();
+        this.probe = new ValueTuple();
+    }
+
+    /**
+     * Reads up to the next trace in the document
+     *
+     * @return the next trace or null if there are no more traces
+     * @throws XMLStreamException Thrown if the document is malformed
+     */
+    Trace nextTrace() throws XMLStreamException {
+        if (!skipToTrace()) {
+            return null;
+        }
+
+        List<Event> events = new ArrayList<>();
+        while (nextEvent(options.isResources(), options.isTimestamps())) {
+            events.add(new Event(registry.getActivity(activityName), resource, timestamp));
+        }
+        return new Trace(events);
+    }
+
+    /**
+     * Reads up to the next trace in the document and appends the ids of its activities to the builder.
+     * Resources and timestamps are skipped.
+     *
+     * @param builder Builder to append the trace to
+     * @return false if there are no more traces
+     * @throws XMLStreamException Thrown if the document is malformed
+     */
+    boolean nextTrace(EncodedLog.Builder builder) throws XMLStreamException {
+        if (!skipToTrace()) {
+            return false;
+        }
+
+        while (nextEvent(false, false)) {
+            builder.append(registry.getActivity(activityName).getId());
+        }
+        builder.endTrace();
+        return true;
+    }
+
+    private boolean skipToTrace() throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                var elementName = reader.getLocalName();
+                if (TRACE_ELEMENT.equals(elementName)) {
+                    if (classifier == null) {
+                        resolveClassifier();
+                    }
+                    return true;
+                }
+                if (classifier == null && CLASSIFIER_ELEMENT.equals(elementName)) {
+                    declaredClassifiers.put(reader.getAttributeValue(null, NAME_ATTRIBUTE),
+                            reader.getAttributeValue(null, KEYS_ATTRIBUTE));
+                }
+            }
+        }
+        return false;
+    }
+
+    private void resolveClassifier() throws XMLStreamException {
+        if (options.getClassifier() != null) {
+            classifier = options.getClassifier();
+        } else {
+            var keys = declaredClassifiers.get(options.getClassifierName());
+            if (keys == null) {
+                throw new XMLStreamException("Unknown classifier " + options.getClassifierName(), reader.getLocation());
+            }
+            try {
+                classifier = EventClassifier.ofXes(keys);
+            } catch (IllegalArgumentException e) {
+                throw new XMLStreamException("Invalid classifier " + options.getClassifierName(),
+                        reader.getLocation(), e);
+            }
+        }
+        classifierValues = new String[classifier.size()];
+    }
+
+    /**
+     * Reads the next event of the current trace
+     *
+     * @param withResource  if false, the resource is skipped
+     * @param withTimestamp if false, the timestamp is skipped
+     * @return false if the end of the trace was reached
+     */
+    private boolean nextEvent(boolean withResource, boolean withTimestamp) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int eventType = reader.next();
+            if (eventType == XMLStreamConstants.START_ELEMENT) {
+                if (depth == 1 && EVENT_ELEMENT.equals(reader.getLocalName())) {
+                    readEvent(withResource, withTimestamp);
+                    return true;
+                }
+                depth++;
+            } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        return false;
+    }
+
+    private void readEvent(boolean withResource, boolean withTimestamp) throws XMLStreamException {
+        Arrays.fill(classifierValues, null);
+        resource = null;
+        timestamp = null;
+
+        int depth = 1;
+        while (depth > 0) {
+            int eventType = reader.next();
+            if (eventType == XMLStreamConstants.START_ELEMENT) {
+                // only direct children of <event> are attributes of this event
+                if (depth == 1) {
+                    readAttribute(withResource, withTimestamp);
+                }
+                depth++;
+            } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+
+        activityName = classify();
+        if (activityName == null) {
+            throw new XMLStreamException("Event without " + classifier + " attribute", reader.getLocation());
+        }
+    }
+
+    private void readAttribute(boolean withResource, boolean withTimestamp) throws XMLStreamException {
+        var elementName = reader.getLocalName();
+        var key = reader.getAttributeValue(null, KEY_ATTRIBUTE);
+        int classifierIndex = classifier.indexOf(key);
+        if (classifierIndex >= 0 && classifierValues[classifierIndex] == null) {
+            classifierValues[classifierIndex] = reader.getAttributeValue(null, VALUE_ATTRIBUTE);
+        }
+
+        if (STRING_ELEMENT.equals(elementName)) {
+            if (withResource && resource == null && RESOURCE_KEY.equals(key)) {
+                resource = reader.getAttributeValue(null, VALUE_ATTRIBUTE);
+            }
+        } else if (withTimestamp && timestamp == null && DATE_ELEMENT.equals(elementName)
+                && TIMESTAMP_KEY.equals(key)) {
+            timestamp = parseTimestamp(reader.getAttributeValue(null, VALUE_ATTRIBUTE));
+        }
+    }
+
+    /**
+     * @return the name of the activity of the event read last or null if none of the classifier keys was present
+     */
+    private String classify() {
+        if (classifierValues.length == 1) {
+            return classifierValues[0];
+        }
+
+        probe.values = classifierValues;
+        probe.hash = Arrays.hashCode(classifierValues);
+        var name = activityNames.get(probe);
+        if (name == null) {
+            name = classifier.activityName(classifierValues);
+            if (name == null) {
+                return null;
+            }
+            var key = new ValueTuple();
+            key.values = classifierValues.clone();
+            key.hash = probe.hash;
+            activityNames.put(key, name);
+        }
+        return name;
+    }
+
+    private Instant parseTimestamp(String value) throws XMLStreamException {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return InstantAdapter.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new XMLStreamException("Invalid timestamp " + value, reader.getLocation(), e);
+        }
+    }
+
+    /**
+     * Values of the classifier keys of an event. The probe wraps the values of the current event,
+     * keys in the map hold a copy.
+     */
+    private static class ValueTuple {
+        private String[] values;
+        private int hash;
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ValueTuple && Arrays.equals(values, ((ValueTuple) other).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
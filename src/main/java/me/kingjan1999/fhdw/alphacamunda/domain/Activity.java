@@ -1,40 +1,36 @@
 package me.kingjan1999.fhdw.alphacamunda.domain;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
 
 /**
  * A single activity, like "check ticket"
  */
 public class Activity {
-    private static final String ALPHA = "alpha";
-    private static final String EPSILON = "epsilon";
     private static final String PLACEHOLDER = "*";
-    private static final Activity PLACEHOLDER_ACTIVITY = new Activity(PLACEHOLDER);
-
-    private static final Map<String, Activity> activityMap = new HashMap<>();
+    private static final Activity PLACEHOLDER_ACTIVITY = new Activity(PLACEHOLDER, -1);
 
     private final String name;
+    private final int id;
 
-    private Activity(String name) {
+    Activity(String name, int id) {
         this.name = name;
+        this.id = id;
     }
 
     /**
      * Returns an activity instance for the given activityName
      * Gurantees that no two activities with the same name exist at time
+     * Activities are interned in the {@link ActivityRegistry#getDefault() default registry}
      *
      * @param activityName Name of the activity
      * @return An activity instance with the given activityName
      */
     public static Activity getActivity(String activityName) {
-        activityMap.putIfAbsent(activityName, new Activity(activityName));
-        return activityMap.get(activityName);
+        return ActivityRegistry.getDefault().getActivity(activityName);
     }
 
     public static Activity getFakeStart() {
-        return getActivity(ALPHA);
+        return ActivityRegistry.getDefault().getFakeStart();
     }
 
     public static Activity getPlaceholderActivity() {
@@ -42,13 +38,20 @@ public class Activity {
     }
 
     public static Activity getFakeEnd() {
-        return getActivity(EPSILON);
+        return ActivityRegistry.getDefault().getFakeEnd();
     }
 
     public String getName() {
         return name;
     }
 
+    /**
+     * @return dense id of this activity within its {@link ActivityRegistry}, -1 for the placeholder
+     */
+    public int getId() {
+        return id;
+    }
+
 
     public String toString() {
         return name;
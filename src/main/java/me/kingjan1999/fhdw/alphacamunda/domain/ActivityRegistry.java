@@ -0,0 +1,122 @@
+package me.kingjan1999.fhdw.alphacamunda.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns activities by their name.
+ * Every activity of a registry gets a dense id (0, 1, 2, ...),
+ * so it can be used as index into primitive arrays.
+ * The fake start and end activities always have the ids 0 and 1.
+ * <p>
+ * Registries are thread-safe. Instead of the shared {@link #getDefault() default registry}
+ * a registry can be created per log or mining session, so its activities
+ * can be garbage collected once the session is done.
+ */
+public class ActivityRegistry {
+
+    private static final String ALPHA = "alpha";
+    private static final String EPSILON = "epsilon";
+
+    private static final ActivityRegistry DEFAULT_REGISTRY = new ActivityRegistry();
+
+    private final ConcurrentMap<String, Activity> activities;
+    private final List<Activity> activitiesById; // guarded by this
+    private final int maxSize;
+
+    private final Activity fakeStart;
+    private final Activity fakeEnd;
+
+    /**
+     * Creates a new registry without size limit
+     */
+    public ActivityRegistry() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new registry holding at most maxSize activities
+     * (including the fake start and end activities)
+     *
+     * @param maxSize Maximum number of activities
+     */
+    public ActivityRegistry(int maxSize) {
+        if (maxSize < 2) {
+            throw new IllegalArgumentException("Registry must be able to hold at least start and end");
+        }
+
+        this.activities = new ConcurrentHashMap<>();
+        this.activitiesById = new ArrayList<>();
+        this.maxSize = maxSize;
+
+        this.fakeStart = getActivity(ALPHA);
+        this.fakeEnd = getActivity(EPSILON);
+    }
+
+    /**
+     * @return the registry used by {@link Activity#getActivity(String)}
+     */
+    public static ActivityRegistry getDefault() {
+        return DEFAULT_REGISTRY;
+    }
+
+    /**
+     * Returns an activity instance for the given activityName
+     * Gurantees that no two activities with the same name exist in this registry
+     *
+     * @param activityName Name of the activity
+     * @return An activity instance with the given activityName
+     * @throws IllegalStateException if a new activity would exceed the maximum size of this registry
+     */
+    public Activity getActivity(String activityName) {
+        Objects.requireNonNull(activityName, "activityName");
+        var activity = activities.get(activityName);
+        if (activity != null) {
+            return activity;
+        }
+        return register(activityName);
+    }
+
+    /**
+     * @param id Id of the activity
+     * @return The activity with the given id
+     * @throws IndexOutOfBoundsException if no activity with this id exists
+     */
+    public synchronized Activity getActivity(int id) {
+        return activitiesById.get(id);
+    }
+
+    public Activity getFakeStart() {
+        return fakeStart;
+    }
+
+    public Activity getFakeEnd() {
+        return fakeEnd;
+    }
+
+    /**
+     * @return number of activities in this registry, ids are in the range [0, size)
+     */
+    public synchronized int size() {
+        return activitiesById.size();
+    }
+
+    private synchronized Activity register(String activityName) {
+        var activity = activities.get(activityName);
+        if (activity != null) {
+            return activity;
+        }
+
+        if (activitiesById.size() >= maxSize) {
+            throw new IllegalStateException("Registry is full, cannot add activity " + activityName);
+        }
+
+        activity = new Activity(activityName, activitiesById.size());
+        activitiesById.add(activity);
+        activities.put(activityName, activity);
+        return activity;
+    }
+}
@@ -0,0 +1,153 @@
+package me.kingjan1999.fhdw.alphacamunda.domain;
+
+import java.util.Arrays;
+
+/**
+ * Compact representation of a log containing only the activity sequences.
+ * The {@link Activity#getId() ids} of all activities are stored in one flat array,
+ * trace i spans the positions [{@link #getTraceStart(int) start(i)}, {@link #getTraceEnd(int) end(i)}).
+ *
+ * @see Log
+ */
+public class EncodedLog {
+
+    private final ActivityRegistry activityRegistry;
+    private final int[] activityIds;
+    private final int[] offsets;
+    private final int traceCount;
+
+    /**
+     * @param activityRegistry Registry the activity ids refer to
+     * @param activityIds      Activity ids of all traces, one after another
+     * @param offsets          Start position of every trace, followed by the total number of events
+     * @param traceCount       Number of traces
+     */
+    public EncodedLog(ActivityRegistry activityRegistry, int[] activityIds, int[] offsets, int traceCount) {
+        this.activityRegistry = activityRegistry;
+        this.activityIds = activityIds;
+        this.offsets = offsets;
+        this.traceCount = traceCount;
+    }
+
+    /**
+     * Encodes the activity sequences of the given log
+     *
+     * @param log Log to encode
+     * @return the encoded log
+     */
+    public static EncodedLog of(Log log) {
+        var builder = new Builder(log.getActivityRegistry());
+        log.getTraces().forEach(builder::addTrace);
+        return builder.build();
+    }
+
+    public ActivityRegistry getActivityRegistry() {
+        return activityRegistry;
+    }
+
+    public int getTraceCount() {
+        return traceCount;
+    }
+
+    /**
+     * @return total number of events in all traces
+     */
+    public int getEventCount() {
+        return offsets[traceCount];
+    }
+
+    /**
+     * @param trace Index of the trace
+     * @return position of the first event of the trace
+     */
+    public int getTraceStart(int trace) {
+        return offsets[trace];
+    }
+
+    /**
+     * @param trace Index of the trace
+     * @return position after the last event of the trace
+     */
+    public int getTraceEnd(int trace) {
+        return offsets[trace + 1];
+    }
+
+    /**
+     * @param position Position of the event
+     * @return id of the activity of the event at the given position
+     */
+    public int getActivityId(int position) {
+        return activityIds[position];
+    }
+
+    /**
+     * Attention: The array is not copied and must not be modified.
+     *
+     * @return activity ids of all events
+     */
+    public int[] getActivityIds() {
+        return activityIds;
+    }
+
+    /**
+     * Incrementally creates an {@link EncodedLog}
+     */
+    public static class Builder {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final ActivityRegistry activityRegistry;
+        private int[] activityIds;
+        private int[] offsets;
+        private int eventCount;
+        private int traceCount;
+
+        public Builder(ActivityRegistry activityRegistry) {
+            this.activityRegistry = activityRegistry;
+            this.activityIds = new int[INITIAL_CAPACITY];
+            this.offsets = new int[INITIAL_CAPACITY];
+        }
+
+        /**
+         * Appends an event to the current trace
+         *
+         * @param activityId Id of the activity of the event
+         */
+        public void append(int activityId) {
+            if (eventCount == activityIds.length) {
+                activityIds = Arrays.copyOf(activityIds, activityIds.length * 2);
+            }
+            activityIds[eventCount++] = activityId;
+        }
+
+        /**
+         * Finishes the current trace, further events belong to a new trace
+         */
+        public void endTrace() {
+            traceCount++;
+            if (traceCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[traceCount] = eventCount;
+        }
+
+        /**
+         * Appends a complete trace, all activities must belong to the registry of this builder
+         *
+         * @param trace Trace to append
+         */
+        public void addTrace(Trace trace) {
+            for (var event : trace.getEvents()) {
+                append(event.getActivity().getId());
+            }
+            endTrace();
+        }
+
+        public EncodedLog build() {
+            return new EncodedLog(activityRegistry,
+                    Arrays.copyOf(activityIds, eventCount),
+                    Arrays.copyOf(offsets, traceCount + 1),
+                    traceCount);
+        }
+    }
+}
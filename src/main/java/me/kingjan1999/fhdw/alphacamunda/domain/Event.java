@@ -1,5 +1,7 @@
 package me.kingjan1999.fhdw.alphacamunda.domain;
 
+import me.kingjan1999.fhdw.alphacamunda.domain.xml.InstantAdapter;
+
 import java.time.Instant;
 
 /**
@@ -11,12 +13,32 @@ public class Event {
 
     private final String resource;
 
-    private final Instant timestamp;
+    private Instant timestamp;
+
+    // text of the timestamp, parsed on the first access
+    private final String timestampText;
 
     public Event(Activity activity, String resource, Instant timestamp) {
+        this(activity, resource, timestamp, null);
+    }
+
+    private Event(Activity activity, String resource, Instant timestamp, String timestampText) {
         this.activity = activity;
         this.resource = resource;
         this.timestamp = timestamp;
+        this.timestampText = timestampText;
+    }
+
+    /**
+     * Creates an event whose timestamp is only parsed when it is requested
+     *
+     * @param activity      Activity of the event
+     * @param resource      Resource of the event
+     * @param timestampText Timestamp in ISO-8601 format, see {@link InstantAdapter#parse(String)}
+     * @return the new event
+     */
+    public static Event withUnparsedTimestamp(Activity activity, String resource, String timestampText) {
+        return new Event(activity, resource, null, timestampText);
     }
 
     public Activity getActivity() {
@@ -27,7 +49,15 @@ public class Event {
         return resource;
     }
 
+    /**
+     * @return the timestamp of the event or null if it has none
+     * @throws java.time.format.DateTimeParseException if the unparsed timestamp is invalid
+     */
     public Instant getTimestamp() {
+        // parsing again after a race yields an equal instant, so no synchronization is needed
+        if (timestamp == null && timestampText != null) {
+            timestamp = InstantAdapter.parse(timestampText);
+        }
         return timestamp;
     }
 }
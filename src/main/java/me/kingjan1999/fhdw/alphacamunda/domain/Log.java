@@ -4,6 +4,7 @@ import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,15 +20,31 @@ public class Log {
     @XmlElement(name = "trace", required = true)
     private final List<Trace> traces;
 
+    @XmlTransient
+    private final ActivityRegistry activityRegistry;
+
     public Log() {
-        this.traces = new ArrayList<>();
+        this(new ArrayList<>());
     }
 
     public Log(List<Trace> traces) {
+        this(traces, ActivityRegistry.getDefault());
+    }
+
+    /**
+     * @param traces           Traces of the log
+     * @param activityRegistry Registry all activities of the traces belong to
+     */
+    public Log(List<Trace> traces, ActivityRegistry activityRegistry) {
         this.traces = traces;
+        this.activityRegistry = activityRegistry;
     }
 
     public List<Trace> getTraces() {
         return traces;
     }
+
+    public ActivityRegistry getActivityRegistry() {
+        return activityRegistry;
+    }
 }
@@ -0,0 +1,175 @@
+package me.kingjan1999.fhdw.alphacamunda.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table of all trace variants (distinct activity sequences) of a log
+ * together with the number of traces following each variant.
+ * <p>
+ * Variants are ordered by their first occurrence in the log.
+ *
+ * @see EncodedLog
+ */
+public class VariantTable {
+
+    private final ActivityRegistry activityRegistry;
+    private final List<Variant> variants;
+
+    private VariantTable(ActivityRegistry activityRegistry, List<Variant> variants) {
+        this.activityRegistry = activityRegistry;
+        this.variants = Collections.unmodifiableList(variants);
+    }
+
+    /**
+     * Collapses identical activity sequences of the log into variants
+     *
+     * @param log Log to compress
+     * @return the variants of the log
+     */
+    public static VariantTable of(Log log) {
+        return of(EncodedLog.of(log));
+    }
+
+    /**
+     * Collapses identical activity sequences of the log into variants
+     *
+     * @param log Encoded log to compress
+     * @return the variants of the log
+     */
+    public static VariantTable of(EncodedLog log) {
+        var activityIds = log.getActivityIds();
+        Map<Sequence, Variant> variantsBySequence = new HashMap<>();
+        List<Variant> variants = new ArrayList<>();
+
+        for (int trace = 0; trace < log.getTraceCount(); trace++) {
+            var sequence = new Sequence(activityIds, log.getTraceStart(trace), log.getTraceEnd(trace));
+            var variant = variantsBySequence.get(sequence);
+            if (variant == null) {
+                variant = new Variant(log.getActivityRegistry(), Arrays.copyOfRange(activityIds, sequence.from, sequence.to));
+                // the key must not reference the (possibly large) array of the log
+                variantsBySequence.put(new Sequence(variant.activityIds, 0, variant.activityIds.length), variant);
+                variants.add(variant);
+            }
+            variant.count++;
+        }
+
+        return new VariantTable(log.getActivityRegistry(), variants);
+    }
+
+    public ActivityRegistry getActivityRegistry() {
+        return activityRegistry;
+    }
+
+    /**
+     * @return all variants, in the order of their first occurrence
+     */
+    public List<Variant> getVariants() {
+        return variants;
+    }
+
+    /**
+     * @return number of traces in all variants
+     */
+    public long getTraceCount() {
+        long traceCount = 0;
+        for (var variant : variants) {
+            traceCount += variant.count;
+        }
+        return traceCount;
+    }
+
+    /**
+     * @param minCount Minimum number of traces
+     * @return a new table containing only the variants followed by at least minCount traces
+     */
+    public VariantTable filter(long minCount) {
+        List<Variant> filtered = new ArrayList<>();
+        for (var variant : variants) {
+            if (variant.count >= minCount) {
+                filtered.add(variant);
+            }
+        }
+        return new VariantTable(activityRegistry, filtered);
+    }
+
+    /**
+     * A distinct activity sequence and the number of traces following it
+     */
+    public static class Variant {
+        private final ActivityRegistry activityRegistry;
+        private final int[] activityIds;
+        private long count;
+
+        private Variant(ActivityRegistry activityRegistry, int[] activityIds) {
+            this.activityRegistry = activityRegistry;
+            this.activityIds = activityIds;
+        }
+
+        /**
+         * Attention: The array is not copied and must not be modified.
+         *
+         * @return ids of the activities of this variant
+         */
+        public int[] getActivityIds() {
+            return activityIds;
+        }
+
+        /**
+         * @return the activities of this variant
+         */
+        public List<Activity> getActivities() {
+            List<Activity> activities = new ArrayList<>(activityIds.length);
+            for (int id : activityIds) {
+                activities.add(activityRegistry.getActivity(id));
+            }
+            return activities;
+        }
+
+        /**
+         * @return number of traces following this variant
+         */
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Slice of an activity id array, compared by content
+     */
+    private static class Sequence {
+        private final int[] activityIds;
+        private final int from;
+        private final int to;
+        private final int hash;
+
+        private Sequence(int[] activityIds, int from, int to) {
+            this.activityIds = activityIds;
+            this.from = from;
+            this.to = to;
+
+            int result = 1;
+            for (int x = from; x < to; x++) {
+                result = 31 * result + activityIds[x];
+            }
+            this.hash = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Sequence other = (Sequence) o;
+            return hash == other.hash && Arrays.equals(activityIds, from, to, other.activityIds, other.from, other.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
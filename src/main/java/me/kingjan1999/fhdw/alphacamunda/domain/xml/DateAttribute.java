@@ -3,25 +3,26 @@ package me.kingjan1999.fhdw.alphacamunda.domain.xml;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
-import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 import java.time.Instant;
 
 /**
  * Simple key-value mapping
  * with string as key and instant as date
+ * <p>
+ * The value is kept as text and only parsed when requested,
+ * so dates which are never used are never parsed.
  */
 @XmlAccessorType(XmlAccessType.FIELD)
 public class DateAttribute {
 
     @XmlAttribute(name = "value")
-    @XmlJavaTypeAdapter(InstantAdapter.class)
-    private final Instant value;
+    private final String value;
     @XmlAttribute(name = "key")
     private final String key;
 
     public DateAttribute(String key, Instant value) {
         this.key = key;
-        this.value = value;
+        this.value = value == null ? null : InstantAdapter.format(value);
     }
 
     public DateAttribute() {
@@ -33,7 +34,18 @@ public class DateAttribute {
         return key;
     }
 
+    /**
+     * @return the parsed value
+     * @throws java.time.format.DateTimeParseException if the value is no valid date
+     */
     public Instant getValue() {
+        return value == null ? null : InstantAdapter.parse(value);
+    }
+
+    /**
+     * @return the value as in the document, without parsing it
+     */
+    public String getText() {
         return value;
     }
 }
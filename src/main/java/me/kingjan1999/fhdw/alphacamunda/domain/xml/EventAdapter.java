@@ -12,19 +12,30 @@ import java.util.List;
  * instances
  */
 public class EventAdapter extends XmlAdapter<EventXml, Event> {
-    private static final String ACTIVITY_KEY = "Activity";
-    private static final String RESOURCE_KEY = "Resource";
-    private static final String TIMESTAMP_KEY = "time:timestamp";
+    public static final String ACTIVITY_KEY = "Activity";
+    public static final String RESOURCE_KEY = "Resource";
+    public static final String TIMESTAMP_KEY = "time:timestamp";
 
     @Override
     public Event unmarshal(EventXml v) {
-        var activityName = v.getStringValue(ACTIVITY_KEY);
+        // resolve all keys in a single pass, the first occurrence of a key wins
+        String activityName = null;
+        String resource = null;
+        for (var attribute : v.getStringAttributes()) {
+            var key = attribute.getKey();
+            if (activityName == null && ACTIVITY_KEY.equals(key)) {
+                activityName = attribute.getValue();
+            } else if (resource == null && RESOURCE_KEY.equals(key)) {
+                resource = attribute.getValue();
+            }
+        }
         var activity = Activity.getActivity(activityName);
 
-        return new Event(
+        // the timestamp is not needed for mining, so it is only parsed when requested
+        return Event.withUnparsedTimestamp(
                 activity,
-                v.getStringValue(RESOURCE_KEY),
-                v.getTimestampValue(TIMESTAMP_KEY));
+                resource,
+                v.getTimestampText(TIMESTAMP_KEY));
     }
 
     @Override
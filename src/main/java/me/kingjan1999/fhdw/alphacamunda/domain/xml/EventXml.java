@@ -30,18 +30,33 @@ public class EventXml {
     }
 
     public String getStringValue(String key) {
-        return stringAttributes.stream()
-                .filter(x -> x.getKey().equals(key))
-                .map(StringAttribute::getValue)
-                .findFirst()
-                .orElse(null);
+        for (var attribute : stringAttributes) {
+            if (attribute.getKey().equals(key)) {
+                return attribute.getValue();
+            }
+        }
+        return null;
     }
 
     public Instant getTimestampValue(String key) {
-        return dateAttributes.stream()
-                .filter(x -> x.getKey().equals(key))
-                .map(DateAttribute::getValue)
-                .findFirst()
-                .orElse(null);
+        var text = getTimestampText(key);
+        return text == null ? null : InstantAdapter.parse(text);
+    }
+
+    /**
+     * @param key Key of the date attribute
+     * @return the unparsed value of the first date attribute with the key or null if there is none
+     */
+    public String getTimestampText(String key) {
+        for (var attribute : dateAttributes) {
+            if (attribute.getKey().equals(key)) {
+                return attribute.getText();
+            }
+        }
+        return null;
+    }
+
+    public List<StringAttribute> getStringAttributes() {
+        return stringAttributes;
     }
 }
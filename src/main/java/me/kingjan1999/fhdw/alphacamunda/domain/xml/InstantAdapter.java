@@ -4,18 +4,149 @@ import javax.xml.bind.annotation.adapters.XmlAdapter;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 
+/**
+ * Converts between XES dates (ISO-8601 with offset) and instants.
+ * <p>
+ * The common form {@code yyyy-MM-ddTHH:mm:ss[.fraction](Z|+HH:mm)} is parsed directly,
+ * all other forms are parsed by {@link DateTimeFormatter#ISO_ZONED_DATE_TIME}.
+ */
 public class InstantAdapter  extends XmlAdapter<String, Instant> {
 
     private static final DateTimeFormatter dateFormat = DateTimeFormatter.ISO_ZONED_DATE_TIME;
 
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+    private static final int[] DAYS_PER_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
     @Override
     public String marshal(Instant dateTime) {
-        return dateFormat.format(dateTime);
+        return format(dateTime);
     }
 
     @Override
     public Instant unmarshal(String dateTime) {
-        return dateFormat.parse(dateTime, Instant::from);
+        return parse(dateTime);
+    }
+
+    /**
+     * @param dateTime Instant to format
+     * @return the instant in ISO-8601 format (UTC)
+     */
+    public static String format(Instant dateTime) {
+        return DateTimeFormatter.ISO_INSTANT.format(dateTime);
+    }
+
+    /**
+     * @param dateTime Date in ISO-8601 format with offset or zone
+     * @return the parsed instant
+     * @throws java.time.format.DateTimeParseException if the date is invalid
+     */
+    public static Instant parse(String dateTime) {
+        var instant = parseFast(dateTime);
+        return instant != null ? instant : dateFormat.parse(dateTime, Instant::from);
+    }
+
+    /**
+     * @return the parsed instant or null if the date does not have the common form or is invalid
+     */
+    private static Instant parseFast(String text) {
+        int length = text.length();
+        if (length < 20 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return null;
+        }
+
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+
+        int position = 19;
+        int nanos = 0;
+        if (text.charAt(position) == '.') {
+            int fractionStart = ++position;
+            while (position < length && isDigit(text.charAt(position))) {
+                position++;
+            }
+            int fractionDigits = position - fractionStart;
+            if (fractionDigits == 0 || fractionDigits > 9) {
+                return null;
+            }
+            nanos = digits(text, fractionStart, fractionDigits);
+            for (int x = fractionDigits; x < 9; x++) {
+                nanos *= 10;
+            }
+        }
+
+        int offsetSeconds;
+        if (position == length - 1 && text.charAt(position) == 'Z') {
+            offsetSeconds = 0;
+        } else if (position == length - 6 && text.charAt(position + 3) == ':') {
+            char sign = text.charAt(position);
+            int offsetHours = digits(text, position + 1, 2);
+            int offsetMinutes = digits(text, position + 4, 2);
+            if ((sign != '+' && sign != '-') || offsetHours < 0 || offsetMinutes < 0 || offsetMinutes > 59) {
+                return null;
+            }
+            offsetSeconds = (offsetHours * 60 + offsetMinutes) * 60;
+            // like ZoneOffset, offsets are limited to +-18:00
+            if (offsetSeconds > MAX_OFFSET_SECONDS) {
+                return null;
+            }
+            if (sign == '-') {
+                offsetSeconds = -offsetSeconds;
+            }
+        } else {
+            return null;
+        }
+
+        long epochSeconds = epochDay(year, month, day) * SECONDS_PER_DAY
+                + hour * 3600 + minute * 60 + second - offsetSeconds;
+        return Instant.ofEpochSecond(epochSeconds, nanos);
     }
 
+    /**
+     * @return the value of the decimal digits or -1 if there are other characters
+     */
+    private static int digits(String text, int from, int count) {
+        int value = 0;
+        for (int x = from; x < from + count; x++) {
+            char current = text.charAt(x);
+            if (!isDigit(current)) {
+                return -1;
+            }
+            value = value * 10 + (current - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+
+    private static int daysOfMonth(int year, int month) {
+        if (month == 2 && (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+            return 29;
+        }
+        return DAYS_PER_MONTH[month - 1];
+    }
+
+    /**
+     * Days since 1970-01-01 of a date in the proleptic gregorian calendar
+     */
+    private static long epochDay(int year, int month, int day) {
+        // shift the year to start in march, so the leap day is the last day of the year
+        long shiftedYear = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(shiftedYear, 400);
+        long yearOfEra = shiftedYear - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
 }
@@ -0,0 +1,314 @@
+package me.kingjan1999.fhdw.alphacamunda.generator;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.Event;
+import me.kingjan1999.fhdw.alphacamunda.domain.Log;
+import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static me.kingjan1999.fhdw.alphacamunda.domain.xml.EventAdapter.ACTIVITY_KEY;
+import static me.kingjan1999.fhdw.alphacamunda.domain.xml.EventAdapter.RESOURCE_KEY;
+import static me.kingjan1999.fhdw.alphacamunda.domain.xml.EventAdapter.TIMESTAMP_KEY;
+
+/**
+ * Generates synthetic logs for scale and stress testing.
+ * <p>
+ * The logs are played out from a random block-structured process:
+ * a sequence of single activities, XOR blocks (exactly one branch is executed)
+ * and parallel blocks (all branches are executed in random order).
+ * Every trace executes the process between minRepetitions and maxRepetitions times in a row.
+ * <p>
+ * The same seed always creates the same process and the same traces.
+ * Traces are created one after another, so even very large logs can be written in constant memory.
+ */
+public class LogGenerator {
+
+    private static final String XES_NAMESPACE = "http://code.deckfour.org/xes";
+    private static final String CONCEPT_NAME_KEY = "concept:name";
+    private static final Instant START = Instant.parse("2020-01-01T00:00:00Z");
+    private static final int SECONDS_BETWEEN_EVENTS = 60;
+    private static final int SECONDS_BETWEEN_TRACES = 600;
+
+    private long seed = 0;
+    private int activities = 10;
+    private int traces = 100;
+    private int xorChoices = 0;
+    private int parallelSplits = 0;
+    private int branches = 2;
+    private int minRepetitions = 1;
+    private int maxRepetitions = 1;
+    private int resources = 5;
+
+    public LogGenerator withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * @param activities Number of distinct activities
+     * @return this generator
+     */
+    public LogGenerator withActivities(int activities) {
+        this.activities = activities;
+        return this;
+    }
+
+    /**
+     * @param traces Number of traces to generate
+     * @return this generator
+     */
+    public LogGenerator withTraces(int traces) {
+        this.traces = traces;
+        return this;
+    }
+
+    /**
+     * @param xorChoices Number of XOR blocks in the process
+     * @return this generator
+     */
+    public LogGenerator withXorChoices(int xorChoices) {
+        this.xorChoices = xorChoices;
+        return this;
+    }
+
+    /**
+     * @param parallelSplits Number of parallel blocks in the process
+     * @return this generator
+     */
+    public LogGenerator withParallelSplits(int parallelSplits) {
+        this.parallelSplits = parallelSplits;
+        return this;
+    }
+
+    /**
+     * @param branches Number of branches (activities) per XOR or parallel block
+     * @return this generator
+     */
+    public LogGenerator withBranches(int branches) {
+        this.branches = branches;
+        return this;
+    }
+
+    /**
+     * Controls the length of the traces: every trace repeats the process
+     * between minRepetitions and maxRepetitions times
+     *
+     * @param minRepetitions Minimum number of repetitions
+     * @param maxRepetitions Maximum number of repetitions
+     * @return this generator
+     */
+    public LogGenerator withRepetitions(int minRepetitions, int maxRepetitions) {
+        this.minRepetitions = minRepetitions;
+        this.maxRepetitions = maxRepetitions;
+        return this;
+    }
+
+    /**
+     * @param resources Number of distinct resources
+     * @return this generator
+     */
+    public LogGenerator withResources(int resources) {
+        this.resources = resources;
+        return this;
+    }
+
+    /**
+     * Generates the complete log in memory
+     *
+     * @param registry Registry for the activities of the log
+     * @return the generated log
+     */
+    public Log generate(ActivityRegistry registry) {
+        List<Trace> generatedTraces = new ArrayList<>(traces);
+        generate(registry, generatedTraces::add);
+        return new Log(generatedTraces, registry);
+    }
+
+    /**
+     * Generates the log and passes every trace to the consumer as soon as it has been created
+     *
+     * @param registry Registry for the activities of the log
+     * @param consumer Consumer receiving the traces
+     */
+    public void generate(ActivityRegistry registry, Consumer<Trace> consumer) {
+        var random = new Random(seed);
+        var process = createProcess(random);
+        var buffer = new TraceBuffer();
+
+        for (int trace = 0; trace < traces; trace++) {
+            playOut(process, random, buffer);
+            var traceStart = START.plusSeconds((long) trace * SECONDS_BETWEEN_TRACES);
+            List<Event> events = new ArrayList<>(buffer.size);
+            for (int x = 0; x < buffer.size; x++) {
+                events.add(new Event(
+                        registry.getActivity(activityName(buffer.activities[x])),
+                        resourceName(buffer.activities[x]),
+                        traceStart.plusSeconds((long) x * SECONDS_BETWEEN_EVENTS)));
+            }
+            consumer.accept(new Trace(events));
+        }
+    }
+
+    /**
+     * Writes the log as XES document, using the keys expected by the parser.
+     * Traces are written one after another, so the memory usage does not depend on the size of the log.
+     * The stream is not closed.
+     *
+     * @param outputStream Stream to write the document to
+     * @throws XMLStreamException Thrown if writing fails
+     */
+    public void writeXes(OutputStream outputStream) throws XMLStreamException {
+        var random = new Random(seed);
+        var process = createProcess(random);
+        var buffer = new TraceBuffer();
+
+        XMLStreamWriter writer = XMLOutputFactory.newFactory()
+                .createXMLStreamWriter(outputStream, StandardCharsets.UTF_8.name());
+        writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+        writer.writeStartElement("log");
+        writer.writeDefaultNamespace(XES_NAMESPACE);
+        writer.writeAttribute("xes.version", "1.0");
+        writer.writeEmptyElement("classifier");
+        writer.writeAttribute("name", ACTIVITY_KEY);
+        writer.writeAttribute("keys", ACTIVITY_KEY);
+
+        for (int trace = 0; trace < traces; trace++) {
+            playOut(process, random, buffer);
+            var traceStart = START.plusSeconds((long) trace * SECONDS_BETWEEN_TRACES);
+
+            writer.writeStartElement("trace");
+            writeAttribute(writer, "string", CONCEPT_NAME_KEY, Integer.toString(trace));
+            for (int x = 0; x < buffer.size; x++) {
+                var activityName = activityName(buffer.activities[x]);
+                writer.writeStartElement("event");
+                writeAttribute(writer, "string", CONCEPT_NAME_KEY, activityName);
+                writeAttribute(writer, "string", ACTIVITY_KEY, activityName);
+                writeAttribute(writer, "string", RESOURCE_KEY, resourceName(buffer.activities[x]));
+                writeAttribute(writer, "date", TIMESTAMP_KEY,
+                        traceStart.plusSeconds((long) x * SECONDS_BETWEEN_EVENTS).toString());
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+        }
+
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.flush();
+        writer.close();
+    }
+
+    private static void writeAttribute(XMLStreamWriter writer, String type, String key, String value)
+            throws XMLStreamException {
+        writer.writeEmptyElement(type);
+        writer.writeAttribute("key", key);
+        writer.writeAttribute("value", value);
+    }
+
+    /**
+     * Creates the blocks of the process.
+     * Each XOR and parallel block uses {@link #branches} activities,
+     * all other activities are executed in sequence.
+     */
+    private List<int[]> createProcess(Random random) {
+        int blockActivities = (xorChoices + parallelSplits) * branches;
+        if (branches < 2 || blockActivities > activities) {
+            throw new IllegalArgumentException("Not enough activities for " + xorChoices + " XOR and "
+                    + parallelSplits + " parallel blocks with " + branches + " branches each");
+        }
+        if (minRepetitions < 1 || maxRepetitions < minRepetitions) {
+            throw new IllegalArgumentException("Invalid repetitions " + minRepetitions + ".." + maxRepetitions);
+        }
+        if (resources < 1) {
+            throw new IllegalArgumentException("Invalid number of resources " + resources);
+        }
+
+        // block types: 0 = single activity, 1 = XOR, 2 = parallel
+        int blockCount = activities - blockActivities + xorChoices + parallelSplits;
+        var types = new int[blockCount];
+        Arrays.fill(types, 0, xorChoices, 1);
+        Arrays.fill(types, xorChoices, xorChoices + parallelSplits, 2);
+        for (int x = types.length - 1; x > 0; x--) {
+            int y = random.nextInt(x + 1);
+            int swap = types[x];
+            types[x] = types[y];
+            types[y] = swap;
+        }
+
+        List<int[]> blocks = new ArrayList<>(blockCount);
+        int nextActivity = 0;
+        for (int type : types) {
+            int width = type == 0 ? 1 : branches;
+            // first element is the type, followed by the activities
+            var block = new int[width + 1];
+            block[0] = type;
+            for (int x = 1; x <= width; x++) {
+                block[x] = nextActivity++;
+            }
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    private void playOut(List<int[]> process, Random random, TraceBuffer buffer) {
+        buffer.size = 0;
+        int repetitions = minRepetitions + random.nextInt(maxRepetitions - minRepetitions + 1);
+        for (int repetition = 0; repetition < repetitions; repetition++) {
+            for (var block : process) {
+                if (block[0] == 1) {
+                    buffer.add(block[1 + random.nextInt(block.length - 1)]);
+                } else if (block[0] == 2) {
+                    int start = buffer.size;
+                    for (int x = 1; x < block.length; x++) {
+                        buffer.add(block[x]);
+                    }
+                    buffer.shuffle(start, random);
+                } else {
+                    buffer.add(block[1]);
+                }
+            }
+        }
+    }
+
+    private static String activityName(int activity) {
+        return "activity" + activity;
+    }
+
+    private String resourceName(int activity) {
+        return "resource" + (activity % resources);
+    }
+
+    /**
+     * Reused buffer for the activities of the trace currently generated
+     */
+    private static class TraceBuffer {
+        private int[] activities = new int[64];
+        private int size;
+
+        private void add(int activity) {
+            if (size == activities.length) {
+                activities = Arrays.copyOf(activities, size * 2);
+            }
+            activities[size++] = activity;
+        }
+
+        private void shuffle(int from, Random random) {
+            for (int x = size - 1; x > from; x--) {
+                int y = from + random.nextInt(x - from + 1);
+                int swap = activities[x];
+                activities[x] = activities[y];
+                activities[y] = swap;
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package me.kingjan1999.fhdw.alphacamunda.layouter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Layered layout of a directed graph whose independent parts are laid out concurrently.
+ * <p>
+ * The graph is split into blocks by a {@link RegionTree}. Every block is laid out by its own {@link LayeredLayout},
+ * in which each region directly nested in the block is a single node of the size of the region's layout.
+ * Edges entering and leaving a region are attached at the height of its entry and exit node.
+ * A block is laid out as soon as its nested regions are done, so blocks without dependencies run concurrently.
+ * Small blocks are laid out directly by the thread finishing their last region, as handing them over
+ * to the executor would take longer than laying them out.
+ * Finally, the components are stacked from top to bottom and every region is moved into the place of its node.
+ * <p>
+ * The result is deterministic and does not depend on the executor.
+ */
+class HierarchicalLayout {
+
+    static final double COMPONENT_GAP = LayeredLayout.LAYER_GAP;
+
+    /**
+     * Blocks with fewer nodes and regions are not handed over to the executor by default
+     */
+    static final int MIN_ASYNC_BLOCK_SIZE = 64;
+
+    private final int nodeCount;
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] widths;
+    private final double[] heights;
+    private final Executor executor;
+    private final int minAsyncBlockSize;
+
+    private List<RegionTree.Block> blocks;
+    private int[] owner;
+    private BlockLayout[] blockLayouts;
+    // position of every node or region in the block laid out with it
+    private int[] nodeIndex;
+    private int[] blockIndex;
+    // block containing every edge and its position in that block
+    private int[] edgeBlock;
+    private int[] edgeIndex;
+
+    // results
+    private double[] nodeX;
+    private double[] nodeY;
+    private double[][] waypoints;
+    private double width;
+    private double height;
+
+    /**
+     * Layout of a single block
+     */
+    private static class BlockLayout {
+        private final List<Integer> nodes = new ArrayList<>();
+        private final List<Integer> regions = new ArrayList<>();
+        private final List<Integer> edgeSources = new ArrayList<>();
+        private final List<Integer> edgeTargets = new ArrayList<>();
+        private LayeredLayout layout;
+        // height of the entry and exit node within the block
+        private double leftPort;
+        private double rightPort;
+        // upper left corner in the final layout
+        private double x;
+        private double y;
+    }
+
+    /**
+     * @param nodeCount Number of nodes
+     * @param sources   Source node of every edge
+     * @param targets   Target node of every edge
+     * @param widths    Width of every node
+     * @param heights   Height of every node
+     * @param executor  Executor laying out the blocks
+     */
+    HierarchicalLayout(int nodeCount, int[] sources, int[] targets, double[] widths, double[] heights, Executor executor) {
+        this(nodeCount, sources, targets, widths, heights, executor, MIN_ASYNC_BLOCK_SIZE);
+    }
+
+    /**
+     * @param nodeCount         Number of nodes
+     * @param sources           Source node of every edge
+     * @param targets           Target node of every edge
+     * @param widths            Width of every node
+     * @param heights           Height of every node
+     * @param executor          Executor laying out the blocks
+     * @param minAsyncBlockSize Blocks with fewer nodes and regions are laid out without the executor
+     */
+    HierarchicalLayout(int nodeCount, int[] sources, int[] targets, double[] widths, double[] heights,
+                       Executor executor, int minAsyncBlockSize) {
+        if (sources.length != targets.length || widths.length != nodeCount || heights.length != nodeCount) {
+            throw new IllegalArgumentException("Array lengths do not match");
+        }
+        this.nodeCount = nodeCount;
+        this.sources = sources;
+        this.targets = targets;
+        this.widths = widths;
+        this.heights = heights;
+        this.executor = executor;
+        this.minAsyncBlockSize = minAsyncBlockSize;
+    }
+
+    /**
+     * Computes the layout and waits for all blocks, afterwards the results can be read
+     *
+     * @return this
+     */
+    HierarchicalLayout compute() {
+        var regionTree = new RegionTree(nodeCount, sources, targets).compute();
+        blocks = regionTree.getBlocks();
+        owner = regionTree.getOwner();
+        splitIntoBlocks();
+        layoutBlocks();
+        compose();
+        return this;
+    }
+
+    /**
+     * @return x coordinate of the upper left corner of every node
+     */
+    double[] getX() {
+        return nodeX;
+    }
+
+    /**
+     * @return y coordinate of the upper left corner of every node
+     */
+    double[] getY() {
+        return nodeY;
+    }
+
+    /**
+     * @return the points of every edge as x, y pairs, from its source to its target
+     */
+    double[][] getWaypoints() {
+        return waypoints;
+    }
+
+    /**
+     * @return width of the bounding box of all nodes and edges, which starts at (0, 0)
+     */
+    double getWidth() {
+        return width;
+    }
+
+    /**
+     * @return height of the bounding box of all nodes and edges, which starts at (0, 0)
+     */
+    double getHeight() {
+        return height;
+    }
+
+    /**
+     * Assigns every node, region and edge to the block it is laid out with
+     */
+    private void splitIntoBlocks() {
+        blockLayouts = new BlockLayout[blocks.size()];
+        for (int block = 0; block < blocks.size(); block++) {
+            blockLayouts[block] = new BlockLayout();
+        }
+
+        nodeIndex = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            var nodes = blockLayouts[owner[node]].nodes;
+            nodeIndex[node] = nodes.size();
+            nodes.add(node);
+        }
+        blockIndex = new int[blocks.size()];
+        for (int block = 0; block < blocks.size(); block++) {
+            int parent = blocks.get(block).getParent();
+            if (parent >= 0) {
+                blockLayouts[parent].regions.add(block);
+            }
+        }
+        // regions follow the nodes of their parent
+        for (var blockLayout : blockLayouts) {
+            for (int x = 0; x < blockLayout.regions.size(); x++) {
+                blockIndex[blockLayout.regions.get(x)] = blockLayout.nodes.size() + x;
+            }
+        }
+
+        edgeBlock = new int[sources.length];
+        edgeIndex = new int[sources.length];
+        for (int e = 0; e < sources.length; e++) {
+            int block = commonBlock(owner[sources[e]], owner[targets[e]]);
+            var blockLayout = blockLayouts[block];
+            edgeBlock[e] = block;
+            edgeIndex[e] = blockLayout.edgeSources.size();
+            blockLayout.edgeSources.add(indexIn(block, sources[e]));
+            blockLayout.edgeTargets.add(indexIn(block, targets[e]));
+        }
+    }
+
+    /**
+     * @return the innermost block containing both blocks
+     */
+    private int commonBlock(int first, int second) {
+        while (blocks.get(first).getDepth() > blocks.get(second).getDepth()) {
+            first = blocks.get(first).getParent();
+        }
+        while (blocks.get(second).getDepth() > blocks.get(first).getDepth()) {
+            second = blocks.get(second).getParent();
+        }
+        while (first != second) {
+            first = blocks.get(first).getParent();
+            second = blocks.get(second).getParent();
+        }
+        return first;
+    }
+
+    /**
+     * @return the position of the node or of the region containing it in the layout of the given block
+     */
+    private int indexIn(int block, int node) {
+        int current = owner[node];
+        if (current == block) {
+            return nodeIndex[node];
+        }
+        while (blocks.get(current).getParent() != block) {
+            current = blocks.get(current).getParent();
+        }
+        return blockIndex[current];
+    }
+
+    /**
+     * Lays out every block after the regions nested in it. Regions are numbered after their parent,
+     * so iterating backwards creates the futures of the nested regions first.
+     */
+    private void layoutBlocks() {
+        if (blocks.size() == 1) {
+            layoutBlock(0);
+            return;
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(blocks.size());
+        for (int block = 0; block < blocks.size(); block++) {
+            futures.add(null);
+        }
+        for (int block = blocks.size() - 1; block >= 0; block--) {
+            var regions = blockLayouts[block].regions;
+            var dependencies = new CompletableFuture<?>[regions.size()];
+            for (int x = 0; x < regions.size(); x++) {
+                dependencies[x] = futures.get(regions.get(x));
+            }
+            int current = block;
+            var ready = CompletableFuture.allOf(dependencies);
+            if (blockLayouts[block].nodes.size() + regions.size() < minAsyncBlockSize) {
+                futures.set(block, ready.thenRun(() -> layoutBlock(current)));
+            } else {
+                futures.set(block, ready.thenRunAsync(() -> layoutBlock(current), executor));
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void layoutBlock(int block) {
+        var blockLayout = blockLayouts[block];
+        int count = blockLayout.nodes.size() + blockLayout.regions.size();
+        double[] blockWidths = new double[count];
+        double[] blockHeights = new double[count];
+        double[] leftPorts = new double[count];
+        double[] rightPorts = new double[count];
+        for (int x = 0; x < blockLayout.nodes.size(); x++) {
+            int node = blockLayout.nodes.get(x);
+            blockWidths[x] = widths[node];
+            blockHeights[x] = heights[node];
+            leftPorts[x] = heights[node] / 2;
+            rightPorts[x] = heights[node] / 2;
+        }
+        for (int x = 0; x < blockLayout.regions.size(); x++) {
+            var region = blockLayouts[blockLayout.regions.get(x)];
+            int index = blockLayout.nodes.size() + x;
+            blockWidths[index] = region.layout.getWidth();
+            blockHeights[index] = region.layout.getHeight();
+            leftPorts[index] = region.leftPort;
+            rightPorts[index] = region.rightPort;
+        }
+
+        var layout = new LayeredLayout(count,
+                blockLayout.edgeSources.stream().mapToInt(Integer::intValue).toArray(),
+                blockLayout.edgeTargets.stream().mapToInt(Integer::intValue).toArray(),
+                blockWidths, blockHeights).withPorts(leftPorts, rightPorts);
+        // the entry is the only source of a region, so it is placed first anyway
+        var info = blocks.get(block);
+        if (info.getExit() >= 0) {
+            layout.withLastNode(indexIn(block, info.getExit()));
+        }
+        blockLayout.layout = layout.compute();
+
+        if (info.getEntry() >= 0) {
+            int entry = indexIn(block, info.getEntry());
+            int exit = indexIn(block, info.getExit());
+            blockLayout.leftPort = layout.getY()[entry] + leftPorts[entry];
+            blockLayout.rightPort = layout.getY()[exit] + rightPorts[exit];
+        }
+    }
+
+    /**
+     * Moves all blocks into place and collects the positions of the nodes and edges
+     */
+    private void compose() {
+        nodeX = new double[nodeCount];
+        nodeY = new double[nodeCount];
+        width = 0;
+        height = 0;
+        for (int block = 0; block < blocks.size(); block++) {
+            var blockLayout = blockLayouts[block];
+            int parent = blocks.get(block).getParent();
+            if (parent < 0) {
+                if (block > 0) {
+                    height += COMPONENT_GAP;
+                }
+                blockLayout.x = 0;
+                blockLayout.y = height;
+                width = Math.max(width, blockLayout.layout.getWidth());
+                height += blockLayout.layout.getHeight();
+            } else {
+                var parentLayout = blockLayouts[parent];
+                blockLayout.x = parentLayout.x + parentLayout.layout.getX()[blockIndex[block]];
+                blockLayout.y = parentLayout.y + parentLayout.layout.getY()[blockIndex[block]];
+            }
+
+            for (int x = 0; x < blockLayout.nodes.size(); x++) {
+                int node = blockLayout.nodes.get(x);
+                nodeX[node] = blockLayout.x + blockLayout.layout.getX()[x];
+                nodeY[node] = blockLayout.y + blockLayout.layout.getY()[x];
+            }
+        }
+
+        waypoints = new double[sources.length][];
+        for (int e = 0; e < sources.length; e++) {
+            var blockLayout = blockLayouts[edgeBlock[e]];
+            var points = blockLayout.layout.getWaypoints()[edgeIndex[e]].clone();
+            for (int x = 0; x < points.length; x += 2) {
+                points[x] += blockLayout.x;
+                points[x + 1] += blockLayout.y;
+            }
+            // edges leaving a region start at the right border of the region, which may be right of its exit.
+            // They start horizontally and never close a cycle, so only the first point has to be moved.
+            if (owner[sources[e]] != edgeBlock[e]) {
+                points[0] = nodeX[sources[e]] + widths[sources[e]];
+            }
+            waypoints[e] = points;
+        }
+    }
+}
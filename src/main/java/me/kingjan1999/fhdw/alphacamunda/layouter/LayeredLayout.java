@@ -0,0 +1,743 @@
+package me.kingjan1999.fhdw.alphacamunda.layouter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sugiyama-style layered layout of a directed graph given by index arrays.
+ * <p>
+ * The graph flows from left to right: every node is assigned to a layer (column),
+ * the nodes of each layer are ordered to reduce edge crossings
+ * and finally placed vertically close to their neighbours.
+ * The steps are
+ * <ol>
+ *     <li>cycle removal: edges closing a cycle in a depth-first search are reversed</li>
+ *     <li>layer assignment: longest path from the sources, edges spanning several layers
+ *     get a dummy node in every layer in between</li>
+ *     <li>crossing minimisation: barycenter heuristic, sweeping the layers up and down</li>
+ *     <li>coordinate assignment: every layer is aligned to the barycenters of its neighbours
+ *     while keeping the order and the minimum distance of its nodes</li>
+ * </ol>
+ * Nodes are identified by their index, edges by their position in the arrays.
+ * Edges are attached to the middle of the left and right side of a node, unless other ports are given.
+ * The result is deterministic.
+ */
+class LayeredLayout {
+
+    static final double LAYER_GAP = 50;
+    static final double NODE_GAP = 30;
+    private static final double DUMMY_GAP = 10;
+    private static final double LOOP_GAP = 20;
+
+    private static final int MAX_ORDER_SWEEPS = 24;
+    private static final int MAX_SWEEPS_WITHOUT_IMPROVEMENT = 4;
+    private static final int COORDINATE_SWEEPS = 8;
+
+    private final int nodeCount;
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] widths;
+    private final double[] heights;
+    private double[] leftPorts;
+    private double[] rightPorts;
+    private int lastNode = -1;
+
+    // virtual graph: real nodes followed by dummy nodes
+    private int virtualCount;
+    private int[] layer;
+    private double[] virtualHeights;
+    private int[][] predecessors;
+    private int[][] successors;
+    private int[][] layers;
+    private int[] position;
+    private int[][] chains;
+    private boolean[] reversed;
+    private double[] barycenters;
+    // left border, right border and center of the column of every dummy node
+    private double[][] dummyCenters;
+
+    // results
+    private double[] nodeX;
+    private double[] nodeY;
+    private double[][] waypoints;
+    private double width;
+    private double height;
+
+    /**
+     * @param nodeCount Number of nodes
+     * @param sources   Source node of every edge
+     * @param targets   Target node of every edge
+     * @param widths    Width of every node
+     * @param heights   Height of every node
+     */
+    LayeredLayout(int nodeCount, int[] sources, int[] targets, double[] widths, double[] heights) {
+        if (sources.length != targets.length || widths.length != nodeCount || heights.length != nodeCount) {
+            throw new IllegalArgumentException("Array lengths do not match");
+        }
+        this.nodeCount = nodeCount;
+        this.sources = sources;
+        this.targets = targets;
+        this.widths = widths;
+        this.heights = heights;
+        this.leftPorts = new double[nodeCount];
+        this.rightPorts = new double[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            leftPorts[node] = heights[node] / 2;
+            rightPorts[node] = heights[node] / 2;
+        }
+    }
+
+    /**
+     * Sets where edges are attached to the nodes
+     *
+     * @param leftPorts  Distance of the incoming edges from the top of every node
+     * @param rightPorts Distance of the outgoing edges from the top of every node
+     * @return this
+     */
+    LayeredLayout withPorts(double[] leftPorts, double[] rightPorts) {
+        if (leftPorts.length != nodeCount || rightPorts.length != nodeCount) {
+            throw new IllegalArgumentException("Array lengths do not match");
+        }
+        this.leftPorts = leftPorts;
+        this.rightPorts = rightPorts;
+        return this;
+    }
+
+    /**
+     * Places the given node in the last layer
+     *
+     * @param node Node without outgoing edges
+     * @return this
+     */
+    LayeredLayout withLastNode(int node) {
+        for (int e = 0; e < sources.length; e++) {
+            if (sources[e] == node) {
+                throw new IllegalArgumentException("Last node " + node + " has outgoing edges");
+            }
+        }
+        this.lastNode = node;
+        return this;
+    }
+
+    /**
+     * Computes the layout, afterwards the results can be read
+     *
+     * @return this
+     */
+    LayeredLayout compute() {
+        removeCycles();
+        assignLayers();
+        insertDummies();
+        orderLayers();
+        assignCoordinates();
+        routeEdges();
+        return this;
+    }
+
+    /**
+     * @return x coordinate of the upper left corner of every node
+     */
+    double[] getX() {
+        return nodeX;
+    }
+
+    /**
+     * @return y coordinate of the upper left corner of every node
+     */
+    double[] getY() {
+        return nodeY;
+    }
+
+    /**
+     * @return the points of every edge as x, y pairs, from its source to its target
+     */
+    double[][] getWaypoints() {
+        return waypoints;
+    }
+
+    /**
+     * @return width of the bounding box of all nodes and edges, which starts at (0, 0)
+     */
+    double getWidth() {
+        return width;
+    }
+
+    /**
+     * @return height of the bounding box of all nodes and edges, which starts at (0, 0)
+     */
+    double getHeight() {
+        return height;
+    }
+
+    /**
+     * Marks the edges closing a cycle, sources of the graph are visited first
+     */
+    private void removeCycles() {
+        int[][] outgoing = adjacency(sources, nodeCount);
+        reversed = new boolean[sources.length];
+
+        int[] state = new int[nodeCount]; // 0 unvisited, 1 on stack, 2 done
+        int[] stack = new int[nodeCount];
+        int[] next = new int[nodeCount];
+
+        boolean[] hasIncoming = new boolean[nodeCount];
+        for (int e = 0; e < sources.length; e++) {
+            if (sources[e] != targets[e]) {
+                hasIncoming[targets[e]] = true;
+            }
+        }
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int root = 0; root < nodeCount; root++) {
+                // first pass starts at the sources only, the second one at whatever is left (e.g. cycles)
+                if (state[root] != 0 || (pass == 0 && hasIncoming[root])) {
+                    continue;
+                }
+
+                int depth = 0;
+                stack[depth++] = root;
+                state[root] = 1;
+                next[root] = 0;
+                while (depth > 0) {
+                    int node = stack[depth - 1];
+                    if (next[node] == outgoing[node].length) {
+                        state[node] = 2;
+                        depth--;
+                        continue;
+                    }
+
+                    int edge = outgoing[node][next[node]++];
+                    int target = targets[edge];
+                    if (state[target] == 1) {
+                        reversed[edge] = true;
+                    } else if (state[target] == 0) {
+                        state[target] = 1;
+                        next[target] = 0;
+                        stack[depth++] = target;
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isSelfLoop(int edge) {
+        return sources[edge] == targets[edge];
+    }
+
+    private int from(int edge) {
+        return reversed[edge] ? targets[edge] : sources[edge];
+    }
+
+    private int to(int edge) {
+        return reversed[edge] ? sources[edge] : targets[edge];
+    }
+
+    /**
+     * Longest path layering of the acyclic graph. Sources are moved
+     * right before their first successor, so they don't cause long edges.
+     */
+    private void assignLayers() {
+        layer = new int[nodeCount];
+        int[] inDegree = new int[nodeCount];
+        List<int[]> dagEdges = new ArrayList<>();
+        for (int e = 0; e < sources.length; e++) {
+            if (!isSelfLoop(e)) {
+                inDegree[to(e)]++;
+                dagEdges.add(new int[]{from(e), to(e)});
+            }
+        }
+        int[] dagSources = new int[dagEdges.size()];
+        int[] dagTargets = new int[dagEdges.size()];
+        for (int e = 0; e < dagEdges.size(); e++) {
+            dagSources[e] = dagEdges.get(e)[0];
+            dagTargets[e] = dagEdges.get(e)[1];
+        }
+        int[][] outgoing = adjacency(dagSources, nodeCount);
+
+        int[] topologicalOrder = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        int[] remaining = inDegree.clone();
+        for (int node = 0; node < nodeCount; node++) {
+            if (remaining[node] == 0) {
+                topologicalOrder[tail++] = node;
+            }
+        }
+        while (head < tail) {
+            int node = topologicalOrder[head++];
+            for (int edge : outgoing[node]) {
+                int target = dagTargets[edge];
+                layer[target] = Math.max(layer[target], layer[node] + 1);
+                if (--remaining[target] == 0) {
+                    topologicalOrder[tail++] = target;
+                }
+            }
+        }
+
+        for (int x = nodeCount - 1; x >= 0; x--) {
+            int node = topologicalOrder[x];
+            if (inDegree[node] == 0 && outgoing[node].length > 0) {
+                int minimum = Integer.MAX_VALUE;
+                for (int edge : outgoing[node]) {
+                    minimum = Math.min(minimum, layer[dagTargets[edge]]);
+                }
+                layer[node] = minimum - 1;
+            }
+        }
+
+        if (lastNode >= 0) {
+            // the node has no outgoing edges, so no edge can point backwards
+            for (int node = 0; node < nodeCount; node++) {
+                layer[lastNode] = Math.max(layer[lastNode], layer[node]);
+            }
+        }
+    }
+
+    /**
+     * Splits edges spanning several layers into chains of dummy nodes and builds the virtual graph
+     */
+    private void insertDummies() {
+        chains = new int[sources.length][];
+        int dummies = 0;
+        for (int e = 0; e < sources.length; e++) {
+            if (!isSelfLoop(e)) {
+                dummies += layer[to(e)] - layer[from(e)] - 1;
+            }
+        }
+
+        virtualCount = nodeCount + dummies;
+        var virtualLayer = Arrays.copyOf(layer, virtualCount);
+        virtualHeights = Arrays.copyOf(heights, virtualCount);
+
+        List<int[]> segments = new ArrayList<>();
+        int nextDummy = nodeCount;
+        for (int e = 0; e < sources.length; e++) {
+            if (isSelfLoop(e)) {
+                chains[e] = new int[]{sources[e]};
+                continue;
+            }
+
+            int from = from(e);
+            int to = to(e);
+            var chain = new int[layer[to] - layer[from] + 1];
+            chain[0] = from;
+            for (int x = 1; x < chain.length - 1; x++) {
+                chain[x] = nextDummy;
+                virtualLayer[nextDummy] = layer[from] + x;
+                nextDummy++;
+            }
+            chain[chain.length - 1] = to;
+            for (int x = 0; x < chain.length - 1; x++) {
+                segments.add(new int[]{chain[x], chain[x + 1]});
+            }
+            chains[e] = chain;
+        }
+        layer = virtualLayer;
+
+        int[] segmentSources = new int[segments.size()];
+        int[] segmentTargets = new int[segments.size()];
+        for (int x = 0; x < segments.size(); x++) {
+            segmentSources[x] = segments.get(x)[0];
+            segmentTargets[x] = segments.get(x)[1];
+        }
+        successors = neighbours(segmentSources, segmentTargets, virtualCount);
+        predecessors = neighbours(segmentTargets, segmentSources, virtualCount);
+    }
+
+    /**
+     * Orders the nodes of every layer. The initial order is the order of a depth-first search,
+     * which is improved by barycenter sweeps as long as the number of crossings decreases.
+     */
+    private void orderLayers() {
+        int layerCount = 0;
+        for (int node = 0; node < virtualCount; node++) {
+            layerCount = Math.max(layerCount, layer[node] + 1);
+        }
+
+        List<List<Integer>> initial = new ArrayList<>(layerCount);
+        for (int x = 0; x < layerCount; x++) {
+            initial.add(new ArrayList<>());
+        }
+        boolean[] visited = new boolean[virtualCount];
+        Integer[] roots = new Integer[virtualCount];
+        for (int node = 0; node < virtualCount; node++) {
+            roots[node] = node;
+        }
+        Arrays.sort(roots, (a, b) -> layer[a] != layer[b] ? Integer.compare(layer[a], layer[b]) : Integer.compare(a, b));
+        int[] stack = new int[virtualCount];
+        for (int root : roots) {
+            if (visited[root] || predecessors[root].length > 0) {
+                continue;
+            }
+            int depth = 0;
+            stack[depth++] = root;
+            visited[root] = true;
+            while (depth > 0) {
+                int node = stack[--depth];
+                initial.get(layer[node]).add(node);
+                // pushed in reverse, so the first successor is visited first
+                for (int x = successors[node].length - 1; x >= 0; x--) {
+                    int successor = successors[node][x];
+                    if (!visited[successor]) {
+                        visited[successor] = true;
+                        stack[depth++] = successor;
+                    }
+                }
+            }
+        }
+
+        layers = new int[layerCount][];
+        position = new int[virtualCount];
+        barycenters = new double[virtualCount];
+        for (int x = 0; x < layerCount; x++) {
+            layers[x] = initial.get(x).stream().mapToInt(Integer::intValue).toArray();
+            updatePositions(layers[x]);
+        }
+
+        int[][] best = copy(layers);
+        long bestCrossings = countCrossings();
+        int withoutImprovement = 0;
+        for (int sweep = 0; sweep < MAX_ORDER_SWEEPS && bestCrossings > 0
+                && withoutImprovement < MAX_SWEEPS_WITHOUT_IMPROVEMENT; sweep++) {
+            if (sweep % 2 == 0) {
+                for (int x = 1; x < layerCount; x++) {
+                    sortByBarycenter(layers[x], predecessors);
+                }
+            } else {
+                for (int x = layerCount - 2; x >= 0; x--) {
+                    sortByBarycenter(layers[x], successors);
+                }
+            }
+
+            long crossings = countCrossings();
+            if (crossings < bestCrossings) {
+                bestCrossings = crossings;
+                best = copy(layers);
+                withoutImprovement = 0;
+            } else {
+                withoutImprovement++;
+            }
+        }
+
+        layers = best;
+        for (var nodes : layers) {
+            updatePositions(nodes);
+        }
+    }
+
+    private void sortByBarycenter(int[] nodes, int[][] neighbours) {
+        for (int node : nodes) {
+            if (neighbours[node].length == 0) {
+                barycenters[node] = position[node];
+                continue;
+            }
+            double sum = 0;
+            for (int neighbour : neighbours[node]) {
+                sum += position[neighbour];
+            }
+            barycenters[node] = sum / neighbours[node].length;
+        }
+
+        // sorting the boxed nodes is stable, so ties keep their current order
+        Integer[] sorted = new Integer[nodes.length];
+        for (int x = 0; x < nodes.length; x++) {
+            sorted[x] = nodes[x];
+        }
+        Arrays.sort(sorted, (a, b) -> Double.compare(barycenters[a], barycenters[b]));
+        for (int x = 0; x < nodes.length; x++) {
+            nodes[x] = sorted[x];
+        }
+        updatePositions(nodes);
+    }
+
+    private void updatePositions(int[] nodes) {
+        for (int x = 0; x < nodes.length; x++) {
+            position[nodes[x]] = x;
+        }
+    }
+
+    /**
+     * Counts the crossings between all adjacent layers by counting inversions with a binary indexed tree
+     */
+    private long countCrossings() {
+        long crossings = 0;
+        for (int x = 0; x + 1 < layers.length; x++) {
+            List<long[]> segments = new ArrayList<>();
+            for (int node : layers[x]) {
+                for (int successor : successors[node]) {
+                    segments.add(new long[]{position[node], position[successor]});
+                }
+            }
+            segments.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+            int size = layers[x + 1].length;
+            long[] tree = new long[size + 1];
+            for (int count = 0; count < segments.size(); count++) {
+                int target = (int) segments.get(count)[1];
+                // segments seen so far ending below the target cross this one
+                long notGreater = 0;
+                for (int index = target + 1; index > 0; index -= index & -index) {
+                    notGreater += tree[index];
+                }
+                crossings += count - notGreater;
+                for (int index = target + 1; index <= size; index += index & -index) {
+                    tree[index]++;
+                }
+            }
+        }
+        return crossings;
+    }
+
+    /**
+     * Places the layers as columns and the nodes of each layer vertically,
+     * as close as possible to the barycenters of their neighbours
+     */
+    private void assignCoordinates() {
+        double[] layerX = new double[layers.length];
+        double[] layerWidths = new double[layers.length];
+        double currentX = 0;
+        for (int x = 0; x < layers.length; x++) {
+            for (int node : layers[x]) {
+                if (node < nodeCount) {
+                    layerWidths[x] = Math.max(layerWidths[x], widths[node]);
+                }
+            }
+            layerX[x] = currentX;
+            currentX += layerWidths[x] + LAYER_GAP;
+        }
+
+        // centers of the nodes, initially stacked from top to bottom
+        double[] center = new double[virtualCount];
+        for (var nodes : layers) {
+            double current = 0;
+            for (int x = 0; x < nodes.length; x++) {
+                if (x > 0) {
+                    current += separation(nodes[x - 1], nodes[x]);
+                }
+                center[nodes[x]] = current;
+            }
+        }
+
+        for (int sweep = 0; sweep < COORDINATE_SWEEPS; sweep++) {
+            if (sweep % 2 == 0) {
+                for (int x = 1; x < layers.length; x++) {
+                    alignToNeighbours(layers[x], predecessors, true, center);
+                }
+            } else {
+                for (int x = layers.length - 2; x >= 0; x--) {
+                    alignToNeighbours(layers[x], successors, false, center);
+                }
+            }
+        }
+
+        double top = Double.MAX_VALUE;
+        for (int node = 0; node < virtualCount; node++) {
+            top = Math.min(top, center[node] - virtualHeights[node] / 2);
+        }
+        // self loops are drawn above their node
+        for (int e = 0; e < sources.length; e++) {
+            if (isSelfLoop(e)) {
+                top = Math.min(top, center[sources[e]] - heights[sources[e]] / 2 - LOOP_GAP);
+            }
+        }
+
+        nodeX = new double[nodeCount];
+        nodeY = new double[nodeCount];
+        dummyCenters = new double[virtualCount][];
+        width = 0;
+        height = 0;
+        for (int l = 0; l < layers.length; l++) {
+            for (int node : layers[l]) {
+                center[node] -= top;
+                if (node < nodeCount) {
+                    nodeX[node] = layerX[l] + (layerWidths[l] - widths[node]) / 2;
+                    nodeY[node] = center[node] - heights[node] / 2;
+                    width = Math.max(width, nodeX[node] + widths[node]);
+                } else {
+                    dummyCenters[node] = new double[]{layerX[l], layerX[l] + layerWidths[l], center[node]};
+                }
+                height = Math.max(height, center[node] + virtualHeights[node] / 2);
+            }
+        }
+        for (int e = 0; e < sources.length; e++) {
+            if (isSelfLoop(e)) {
+                width = Math.max(width, nodeX[sources[e]] + widths[sources[e]] + LOOP_GAP);
+            }
+        }
+    }
+
+    private double separation(int upper, int lower) {
+        double gap = upper >= nodeCount || lower >= nodeCount ? DUMMY_GAP : NODE_GAP;
+        return (virtualHeights[upper] + virtualHeights[lower]) / 2 + gap;
+    }
+
+    /**
+     * @return distance of the port on the given side from the center of the node, 0 for dummy nodes
+     */
+    private double portShift(int node, boolean left) {
+        if (node >= nodeCount) {
+            return 0;
+        }
+        return (left ? leftPorts[node] : rightPorts[node]) - heights[node] / 2;
+    }
+
+    /**
+     * Moves the nodes of a layer as close as possible (least squares) to the barycenters of their neighbours,
+     * keeping their order and minimum separation. This is an isotonic regression,
+     * solved with the pool adjacent violators algorithm.
+     *
+     * @param predecessors whether the neighbours are the predecessors, which are attached to the left side
+     */
+    private void alignToNeighbours(int[] nodes, int[][] neighbours, boolean predecessors, double[] center) {
+        int count = nodes.length;
+        if (count == 0) {
+            return;
+        }
+
+        // offset[x] is the minimum distance of node x from the first node,
+        // shifted desired positions have to be non-decreasing
+        double[] offset = new double[count];
+        for (int x = 1; x < count; x++) {
+            offset[x] = offset[x - 1] + separation(nodes[x - 1], nodes[x]);
+        }
+
+        double[] blockSum = new double[count];
+        double[] blockWeight = new double[count];
+        int[] blockSize = new int[count];
+        int blocks = 0;
+        for (int x = 0; x < count; x++) {
+            int node = nodes[x];
+            double desired = center[node];
+            double weight = 1;
+            if (neighbours[node].length > 0) {
+                // the ports of the edges are aligned, not the centers
+                double sum = 0;
+                for (int neighbour : neighbours[node]) {
+                    sum += center[neighbour] + portShift(neighbour, !predecessors);
+                }
+                desired = sum / neighbours[node].length - portShift(node, predecessors);
+                weight = neighbours[node].length;
+            }
+
+            blockSum[blocks] = (desired - offset[x]) * weight;
+            blockWeight[blocks] = weight;
+            blockSize[blocks] = 1;
+            blocks++;
+            while (blocks > 1 && blockSum[blocks - 2] / blockWeight[blocks - 2] > blockSum[blocks - 1] / blockWeight[blocks - 1]) {
+                blockSum[blocks - 2] += blockSum[blocks - 1];
+                blockWeight[blocks - 2] += blockWeight[blocks - 1];
+                blockSize[blocks - 2] += blockSize[blocks - 1];
+                blocks--;
+            }
+        }
+
+        int x = 0;
+        for (int block = 0; block < blocks; block++) {
+            double value = blockSum[block] / blockWeight[block];
+            for (int member = 0; member < blockSize[block]; member++, x++) {
+                center[nodes[x]] = value + offset[x];
+            }
+        }
+    }
+
+    /**
+     * Creates orthogonal waypoints for every edge, passing the columns of its dummy nodes horizontally
+     */
+    private void routeEdges() {
+        waypoints = new double[sources.length][];
+        for (int e = 0; e < sources.length; e++) {
+            if (isSelfLoop(e)) {
+                waypoints[e] = routeSelfLoop(sources[e]);
+                continue;
+            }
+
+            var chain = chains[e];
+            List<double[]> points = new ArrayList<>();
+            int first = chain[0];
+            points.add(new double[]{nodeX[first] + widths[first], nodeY[first] + rightPorts[first]});
+            for (int c = 1; c < chain.length - 1; c++) {
+                var dummy = dummyCenters[chain[c]];
+                addOrthogonal(points, dummy[0], dummy[2]);
+                points.add(new double[]{dummy[1], dummy[2]});
+            }
+            int last = chain[chain.length - 1];
+            addOrthogonal(points, nodeX[last], nodeY[last] + leftPorts[last]);
+
+            var flat = new double[points.size() * 2];
+            for (int p = 0; p < points.size(); p++) {
+                // reversed edges are routed forward and their points reversed
+                int index = reversed[e] ? points.size() - 1 - p : p;
+                flat[2 * p] = points.get(index)[0];
+                flat[2 * p + 1] = points.get(index)[1];
+            }
+            waypoints[e] = flat;
+        }
+    }
+
+    private static void addOrthogonal(List<double[]> points, double targetX, double targetY) {
+        var last = points.get(points.size() - 1);
+        if (last[1] != targetY) {
+            double middle = (last[0] + targetX) / 2;
+            points.add(new double[]{middle, last[1]});
+            points.add(new double[]{middle, targetY});
+        }
+        points.add(new double[]{targetX, targetY});
+    }
+
+    private double[] routeSelfLoop(int node) {
+        double right = nodeX[node] + widths[node];
+        double middleX = nodeX[node] + widths[node] / 2;
+        double middleY = nodeY[node] + heights[node] / 2;
+        double above = nodeY[node] - LOOP_GAP;
+        return new double[]{
+                right, middleY,
+                right + LOOP_GAP, middleY,
+                right + LOOP_GAP, above,
+                middleX, above,
+                middleX, nodeY[node]
+        };
+    }
+
+    /**
+     * @return the edge indices leaving every node
+     */
+    static int[][] adjacency(int[] edgeSources, int nodeCount) {
+        int[] degree = new int[nodeCount];
+        for (int source : edgeSources) {
+            degree[source]++;
+        }
+        int[][] result = new int[nodeCount][];
+        for (int node = 0; node < nodeCount; node++) {
+            result[node] = new int[degree[node]];
+            degree[node] = 0;
+        }
+        for (int e = 0; e < edgeSources.length; e++) {
+            result[edgeSources[e]][degree[edgeSources[e]]++] = e;
+        }
+        return result;
+    }
+
+    /**
+     * @return the nodes reached by the edges leaving every node, in edge order
+     */
+    private static int[][] neighbours(int[] edgeSources, int[] edgeTargets, int nodeCount) {
+        int[][] edges = adjacency(edgeSources, nodeCount);
+        int[][] result = new int[nodeCount][];
+        for (int node = 0; node < nodeCount; node++) {
+            result[node] = new int[edges[node].length];
+            for (int x = 0; x < edges[node].length; x++) {
+                result[node][x] = edgeTargets[edges[node][x]];
+            }
+        }
+        return result;
+    }
+
+    private static int[][] copy(int[][] array) {
+        int[][] result = new int[array.length][];
+        for (int x = 0; x < array.length; x++) {
+            result[x] = array[x].clone();
+        }
+        return result;
+    }
+}
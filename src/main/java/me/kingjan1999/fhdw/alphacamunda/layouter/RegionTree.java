@@ -0,0 +1,381 @@
+package me.kingjan1999.fhdw.alphacamunda.layouter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits a directed graph given by index arrays into blocks which can be laid out independently.
+ * <p>
+ * Every weakly connected component is a block. Inside the components, single-entry/single-exit regions
+ * become nested blocks: a split with a single incoming edge together with all nodes up to its
+ * immediate postdominator, which must have a single outgoing edge. No other edge may enter or leave the region.
+ * Regions lying on a cycle through the rest of the graph are not used,
+ * so the edges entering and leaving a region never close a cycle.
+ * <p>
+ * Blocks are numbered such that every region comes after the block containing it.
+ * The result is deterministic.
+ */
+class RegionTree {
+
+    /**
+     * Regions with fewer nodes are laid out as part of the surrounding block
+     */
+    private static final int MIN_REGION_SIZE = 4;
+
+    /**
+     * Component or region
+     */
+    static class Block {
+        private final int parent;
+        private final int entry;
+        private final int exit;
+        private final int depth;
+
+        private Block(int parent, int entry, int exit, int depth) {
+            this.parent = parent;
+            this.entry = entry;
+            this.exit = exit;
+            this.depth = depth;
+        }
+
+        /**
+         * @return the block containing this region or -1 for components
+         */
+        int getParent() {
+            return parent;
+        }
+
+        /**
+         * @return the only node of the region with an incoming edge from outside or -1 for components
+         */
+        int getEntry() {
+            return entry;
+        }
+
+        /**
+         * @return the only node of the region with an outgoing edge to outside or -1 for components
+         */
+        int getExit() {
+            return exit;
+        }
+
+        /**
+         * @return the number of blocks containing this one, 0 for components
+         */
+        int getDepth() {
+            return depth;
+        }
+    }
+
+    private final int nodeCount;
+    private final int[] sources;
+    private final int[] targets;
+
+    private final List<Block> blocks = new ArrayList<>();
+    private int[] owner;
+
+    /**
+     * @param nodeCount Number of nodes
+     * @param sources   Source node of every edge
+     * @param targets   Target node of every edge
+     */
+    RegionTree(int nodeCount, int[] sources, int[] targets) {
+        if (sources.length != targets.length) {
+            throw new IllegalArgumentException("Array lengths do not match");
+        }
+        this.nodeCount = nodeCount;
+        this.sources = sources;
+        this.targets = targets;
+    }
+
+    /**
+     * Finds the blocks, afterwards the results can be read
+     *
+     * @return this
+     */
+    RegionTree compute() {
+        owner = findComponents();
+        findRegions();
+        return this;
+    }
+
+    /**
+     * @return all blocks, every region after the block containing it
+     */
+    List<Block> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * @return the innermost block containing every node
+     */
+    int[] getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return the component of every node, components are numbered by their first node
+     */
+    private int[] findComponents() {
+        int[] representative = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            representative[node] = node;
+        }
+        for (int e = 0; e < sources.length; e++) {
+            int first = find(representative, sources[e]);
+            int second = find(representative, targets[e]);
+            // the smaller node stays the representative, so the numbering follows the node order
+            representative[Math.max(first, second)] = Math.min(first, second);
+        }
+
+        int[] component = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            int root = find(representative, node);
+            if (root == node) {
+                component[node] = blocks.size();
+                blocks.add(new Block(-1, -1, -1, 0));
+            } else {
+                component[node] = component[root];
+            }
+        }
+        return component;
+    }
+
+    private static int find(int[] representative, int node) {
+        while (representative[node] != node) {
+            representative[node] = representative[representative[node]];
+            node = representative[node];
+        }
+        return node;
+    }
+
+    /**
+     * Adds the regions, larger ones first. Regions overlapping an already added one without being nested are skipped.
+     */
+    private void findRegions() {
+        int[][] outgoing = LayeredLayout.adjacency(sources, nodeCount);
+        int[][] incoming = LayeredLayout.adjacency(targets, nodeCount);
+        int[] component = stronglyConnectedComponents(outgoing);
+        int[] postdominator = immediatePostdominators(outgoing, incoming);
+
+        List<int[]> regions = new ArrayList<>();
+        int[] mark = new int[nodeCount];
+        Arrays.fill(mark, -1);
+        for (int entry = 0; entry < nodeCount; entry++) {
+            int exit = postdominator[entry];
+            if (incoming[entry].length != 1 || outgoing[entry].length < 2 || exit < 0 || exit == nodeCount
+                    || exit == entry || component[entry] == component[exit]) {
+                continue;
+            }
+            var region = collectRegion(entry, exit, outgoing, incoming, mark);
+            if (region != null && region.length >= MIN_REGION_SIZE) {
+                regions.add(region);
+            }
+        }
+        // the entry is the first node of a region
+        regions.sort((a, b) -> a.length != b.length ? Integer.compare(b.length, a.length) : Integer.compare(a[0], b[0]));
+
+        for (var region : regions) {
+            int parent = owner[region[0]];
+            boolean nested = true;
+            for (int node : region) {
+                nested &= owner[node] == parent;
+            }
+            if (!nested) {
+                continue;
+            }
+
+            int block = blocks.size();
+            blocks.add(new Block(parent, region[0], postdominator[region[0]], blocks.get(parent).depth + 1));
+            for (int node : region) {
+                owner[node] = block;
+            }
+        }
+    }
+
+    /**
+     * Collects the nodes reachable from the entry without passing the exit
+     *
+     * @return the nodes of the region starting with the entry or null if other edges enter or leave them
+     */
+    private int[] collectRegion(int entry, int exit, int[][] outgoing, int[][] incoming, int[] mark) {
+        List<Integer> region = new ArrayList<>();
+        region.add(entry);
+        mark[entry] = entry;
+        for (int x = 0; x < region.size(); x++) {
+            int node = region.get(x);
+            if (node == exit) {
+                continue;
+            }
+            for (int edge : outgoing[node]) {
+                int target = targets[edge];
+                if (mark[target] != entry) {
+                    mark[target] = entry;
+                    region.add(target);
+                }
+            }
+        }
+
+        if (mark[sources[incoming[entry][0]]] == entry
+                || outgoing[exit].length != 1 || mark[targets[outgoing[exit][0]]] == entry) {
+            return null;
+        }
+        for (int x = 1; x < region.size(); x++) {
+            for (int edge : incoming[region.get(x)]) {
+                if (mark[sources[edge]] != entry) {
+                    return null;
+                }
+            }
+        }
+        return region.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Tarjan's algorithm without recursion
+     *
+     * @return the strongly connected component of every node
+     */
+    private int[] stronglyConnectedComponents(int[][] outgoing) {
+        int[] index = new int[nodeCount];
+        int[] low = new int[nodeCount];
+        int[] component = new int[nodeCount];
+        int[] next = new int[nodeCount];
+        boolean[] onStack = new boolean[nodeCount];
+        int[] stack = new int[nodeCount];
+        int[] callStack = new int[nodeCount];
+        Arrays.fill(index, -1);
+
+        int counter = 0;
+        int components = 0;
+        int stackSize = 0;
+        for (int root = 0; root < nodeCount; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth > 0) {
+                int node = callStack[depth - 1];
+                if (next[node] < outgoing[node].length) {
+                    int target = targets[outgoing[node][next[node]++]];
+                    if (index[target] < 0) {
+                        index[target] = low[target] = counter++;
+                        stack[stackSize++] = target;
+                        onStack[target] = true;
+                        callStack[depth++] = target;
+                    } else if (onStack[target]) {
+                        low[node] = Math.min(low[node], index[target]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (low[node] == index[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        component[member] = components;
+                    } while (member != node);
+                    components++;
+                }
+                if (depth > 0) {
+                    int caller = callStack[depth - 1];
+                    low[caller] = Math.min(low[caller], low[node]);
+                }
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Computes the postdominator tree with the algorithm of Cooper, Harvey and Kennedy.
+     * All nodes without outgoing edges lead to a virtual exit node with the index nodeCount.
+     *
+     * @return the immediate postdominator of every node or -1 if the node can't reach a node without outgoing edges
+     */
+    private int[] immediatePostdominators(int[][] outgoing, int[][] incoming) {
+        int exit = nodeCount;
+
+        // postorder of a depth-first search from the exit against the direction of the edges
+        int[] postorder = new int[nodeCount + 1];
+        Arrays.fill(postorder, -1);
+        int[] order = new int[nodeCount + 1];
+        int[] next = new int[nodeCount + 1];
+        boolean[] visited = new boolean[nodeCount + 1];
+        int[] stack = new int[nodeCount + 1];
+        int visitedCount = 0;
+
+        List<Integer> sinks = new ArrayList<>();
+        for (int node = 0; node < nodeCount; node++) {
+            if (outgoing[node].length == 0) {
+                sinks.add(node);
+            }
+        }
+
+        int depth = 0;
+        stack[depth++] = exit;
+        visited[exit] = true;
+        while (depth > 0) {
+            int node = stack[depth - 1];
+            int predecessorCount = node == exit ? sinks.size() : incoming[node].length;
+            if (next[node] < predecessorCount) {
+                int predecessor = node == exit ? sinks.get(next[node]) : sources[incoming[node][next[node]]];
+                next[node]++;
+                if (!visited[predecessor]) {
+                    visited[predecessor] = true;
+                    stack[depth++] = predecessor;
+                }
+                continue;
+            }
+            depth--;
+            postorder[node] = visitedCount;
+            order[visitedCount++] = node;
+        }
+
+        int[] postdominator = new int[nodeCount + 1];
+        Arrays.fill(postdominator, -1);
+        postdominator[exit] = exit;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            // reverse postorder, skipping the exit
+            for (int x = visitedCount - 2; x >= 0; x--) {
+                int node = order[x];
+                int candidate = -1;
+                if (outgoing[node].length == 0) {
+                    candidate = exit;
+                }
+                for (int edge : outgoing[node]) {
+                    int successor = targets[edge];
+                    if (postdominator[successor] < 0) {
+                        continue;
+                    }
+                    candidate = candidate < 0 ? successor : intersect(candidate, successor, postdominator, postorder);
+                }
+                if (postdominator[node] != candidate) {
+                    postdominator[node] = candidate;
+                    changed = true;
+                }
+            }
+        }
+        return postdominator;
+    }
+
+    private static int intersect(int first, int second, int[] postdominator, int[] postorder) {
+        while (first != second) {
+            while (postorder[first] < postorder[second]) {
+                first = postdominator[first];
+            }
+            while (postorder[second] < postorder[first]) {
+                second = postdominator[second];
+            }
+        }
+        return first;
+    }
+}
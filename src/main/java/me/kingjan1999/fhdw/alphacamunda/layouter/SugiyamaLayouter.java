@@ -0,0 +1,187 @@
+package me.kingjan1999.fhdw.alphacamunda.layouter;
+
+import me.kingjan1999.fhdw.alphacamunda.BPMNUtil;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.instance.Process;
+import org.camunda.bpm.model.bpmn.instance.*;
+import org.camunda.bpm.model.bpmn.instance.bpmndi.BpmnEdge;
+import org.camunda.bpm.model.bpmn.instance.bpmndi.BpmnPlane;
+import org.camunda.bpm.model.bpmn.instance.bpmndi.BpmnShape;
+import org.camunda.bpm.model.bpmn.instance.dc.Bounds;
+import org.camunda.bpm.model.bpmn.instance.di.Waypoint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Layouter for BPMN processes
+ * Uses a layered (Sugiyama-style) layout, see {@link LayeredLayout}.
+ * Independent components and single-entry/single-exit regions are laid out concurrently, see {@link HierarchicalLayout}.
+ * <p>
+ * The process is copied into a new model like by the {@link FluentLayouter}:
+ * tasks become user tasks, ids are kept and the name of every flow node is its id.
+ * All shapes and edges of the diagram are written in a single pass.
+ */
+public class SugiyamaLayouter implements Layouter {
+
+    private static final double TASK_WIDTH = 100;
+    private static final double TASK_HEIGHT = 80;
+    private static final double GATEWAY_SIZE = 50;
+    private static final double EVENT_SIZE = 36;
+
+    private final Executor executor;
+    private final int minAsyncBlockSize;
+
+    /**
+     * Creates a layouter using the common {@link ForkJoinPool}
+     */
+    public SugiyamaLayouter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor Executor laying out the independent parts of a process
+     */
+    public SugiyamaLayouter(Executor executor) {
+        this(executor, HierarchicalLayout.MIN_ASYNC_BLOCK_SIZE);
+    }
+
+    /**
+     * @param executor          Executor laying out the independent parts of a process
+     * @param minAsyncBlockSize Parts with fewer elements are laid out without the executor
+     */
+    SugiyamaLayouter(Executor executor, int minAsyncBlockSize) {
+        this.executor = executor;
+        this.minAsyncBlockSize = minAsyncBlockSize;
+    }
+
+    @Override
+    public BpmnModelInstance layout(BpmnModelInstance modelInstance) {
+        // getModelElementsByType searches the whole document once for every subtype of FlowNode
+        List<FlowNode> nodes = new ArrayList<>();
+        List<SequenceFlow> flows = new ArrayList<>();
+        for (var process : modelInstance.getModelElementsByType(Process.class)) {
+            for (var element : process.getFlowElements()) {
+                if (element instanceof FlowNode) {
+                    nodes.add((FlowNode) element);
+                } else if (element instanceof SequenceFlow) {
+                    flows.add((SequenceFlow) element);
+                }
+            }
+        }
+
+        Map<FlowNode, Integer> indices = new HashMap<>();
+        double[] widths = new double[nodes.size()];
+        double[] heights = new double[nodes.size()];
+        for (int x = 0; x < nodes.size(); x++) {
+            var node = nodes.get(x);
+            indices.put(node, x);
+            widths[x] = getWidth(node);
+            heights[x] = getHeight(node);
+        }
+
+        int[] sources = new int[flows.size()];
+        int[] targets = new int[flows.size()];
+        for (int x = 0; x < flows.size(); x++) {
+            sources[x] = indices.get(flows.get(x).getSource());
+            targets[x] = indices.get(flows.get(x).getTarget());
+        }
+
+        var layout = new HierarchicalLayout(nodes.size(), sources, targets, widths, heights, executor, minAsyncBlockSize)
+                .compute();
+        return write(nodes, flows, sources, targets, layout);
+    }
+
+    private BpmnModelInstance write(List<FlowNode> nodes, List<SequenceFlow> flows,
+                                    int[] sources, int[] targets, HierarchicalLayout layout) {
+        var newInstance = Bpmn.createExecutableProcess().done();
+        var process = newInstance.getModelElementsByType(Process.class).iterator().next();
+        var plane = newInstance.getModelElementsByType(BpmnPlane.class).iterator().next();
+
+        List<FlowNode> newNodes = new ArrayList<>(nodes.size());
+        for (int x = 0; x < nodes.size(); x++) {
+            var node = nodes.get(x);
+            var newNode = BPMNUtil.appendElement(process, node.getId(), node.getId(), getClassToCreate(node));
+            newNodes.add(newNode);
+
+            var shape = BPMNUtil.appendElement(plane, node.getId() + "_di", null, BpmnShape.class);
+            shape.setBpmnElement(newNode);
+            if (newNode instanceof ExclusiveGateway) {
+                shape.setMarkerVisible(true);
+            }
+            var bounds = newInstance.newInstance(Bounds.class);
+            bounds.setX(layout.getX()[x]);
+            bounds.setY(layout.getY()[x]);
+            bounds.setWidth(getWidth(node));
+            bounds.setHeight(getHeight(node));
+            shape.setBounds(bounds);
+        }
+
+        var waypoints = layout.getWaypoints();
+        for (int x = 0; x < flows.size(); x++) {
+            var flow = flows.get(x);
+            var source = newNodes.get(sources[x]);
+            var target = newNodes.get(targets[x]);
+            var newFlow = BPMNUtil.appendElement(process, flow.getId(), null, SequenceFlow.class);
+            newFlow.setSource(source);
+            newFlow.setTarget(target);
+            source.getOutgoing().add(newFlow);
+            target.getIncoming().add(newFlow);
+
+            var edge = BPMNUtil.appendElement(plane, flow.getId() + "_di", null, BpmnEdge.class);
+            edge.setBpmnElement(newFlow);
+            for (int point = 0; point < waypoints[x].length; point += 2) {
+                var waypoint = newInstance.newInstance(Waypoint.class);
+                waypoint.setX(waypoints[x][point]);
+                waypoint.setY(waypoints[x][point + 1]);
+                edge.getDomElement().appendChild(waypoint.getDomElement());
+            }
+        }
+
+        return newInstance;
+    }
+
+    private static Class<? extends FlowNode> getClassToCreate(FlowNode node) {
+        if (node instanceof Task) {
+            return UserTask.class;
+        }
+        if (node instanceof StartEvent) {
+            return StartEvent.class;
+        }
+        if (node instanceof EndEvent) {
+            return EndEvent.class;
+        }
+        if (node instanceof ParallelGateway) {
+            return ParallelGateway.class;
+        }
+        if (node instanceof ExclusiveGateway) {
+            return ExclusiveGateway.class;
+        }
+        throw new IllegalArgumentException(node.getClass().toString());
+    }
+
+    private static double getWidth(FlowNode node) {
+        if (node instanceof Gateway) {
+            return GATEWAY_SIZE;
+        }
+        if (node instanceof Event) {
+            return EVENT_SIZE;
+        }
+        return TASK_WIDTH;
+    }
+
+    private static double getHeight(FlowNode node) {
+        if (node instanceof Gateway) {
+            return GATEWAY_SIZE;
+        }
+        if (node instanceof Event) {
+            return EVENT_SIZE;
+        }
+        return TASK_HEIGHT;
+    }
+}
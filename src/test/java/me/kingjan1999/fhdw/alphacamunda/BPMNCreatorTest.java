@@ -1,6 +1,10 @@
 package me.kingjan1999.fhdw.alphacamunda;
 
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
 import me.kingjan1999.fhdw.alphacamunda.domain.Log;
+import me.kingjan1999.fhdw.alphacamunda.generator.LogGenerator;
+import org.apache.commons.lang3.tuple.Triple;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
 import org.camunda.bpm.model.bpmn.instance.*;
 import org.junit.jupiter.api.Test;
 
@@ -8,8 +12,15 @@ import javax.xml.bind.JAXBException;
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 class BPMNCreatorTest {
@@ -43,6 +54,33 @@ class BPMNCreatorTest {
         assertEquals("registerrequest", activityAfterStart.getName());
     }
 
+    @Test
+    void createAndLayoutWithCompositeClassifier() throws IOException, XMLStreamException {
+        var registry = new ActivityRegistry();
+        Log log;
+        try (InputStream is = Thread.currentThread().getContextClassLoader()
+                .getResourceAsStream("parser-fixtures/eventlog-full.xes")) {
+            log = new XesParser(ParseOptions.all().withClassifier(EventClassifier.of("Activity", "Resource")))
+                    .parse(is, registry);
+        }
+        var builder = new RelationBuilder(registry);
+        builder.evaluate(log);
+
+        var createdModelInstance = BPMNCreator.createAndLayout(builder);
+        Set<String> ids = createdModelInstance.getModelElementsByType(Activity.class).stream()
+                .map(BaseElement::getId)
+                .collect(Collectors.toSet());
+        assertTrue(ids.contains("registerrequest_2b_Pete"), ids.toString());
+    }
+
+    @Test
+    void createValidIds() {
+        assertEquals("registerrequest", ProcessGraph.toId("register request"));
+        assertEquals("a_2b_complete", ProcessGraph.toId("a+complete"));
+        assertEquals("a_5c__2b_b", ProcessGraph.toId("a\\+b"));
+        assertEquals("_31_st-step_5f_2", ProcessGraph.toId("1st-step_2"));
+    }
+
     @Test
     void testSkript1() {
         // Figure 45
@@ -57,6 +95,119 @@ class BPMNCreatorTest {
         assertEquals(19, createdModelInstance.getModelElementsByType(SequenceFlow.class).size());
     }
 
+    @Test
+    void createConsistentFlows() {
+        var log = Util.createLogFromStrings("abghjkil", "acdefgjhikl");
+        var builder = new RelationBuilder();
+        builder.evaluate(log);
+        var modelInstance = new BPMNCreator().create(
+                builder.getActivityList(),
+                builder.getAlternatives(),
+                builder.getAbstractions(),
+                builder.getRemainingCausalities(),
+                builder.getNotSuccession());
+
+        for (var flow : modelInstance.getModelElementsByType(SequenceFlow.class)) {
+            assertTrue(flow.getSource().getOutgoing().contains(flow));
+            assertTrue(flow.getTarget().getIncoming().contains(flow));
+        }
+        for (var node : modelInstance.getModelElementsByType(FlowNode.class)) {
+            node.getIncoming().forEach(x -> assertSame(node, x.getTarget()));
+            node.getOutgoing().forEach(x -> assertSame(node, x.getSource()));
+        }
+        assertEquals(4, modelInstance.getModelElementsByType(Gateway.class).size());
+    }
+
+    @Test
+    void createMergesSplitsWithSameInputs() {
+        var modelInstance = createForGeneratedLog();
+
+        Set<String> signatures = new HashSet<>();
+        for (var gateway : modelInstance.getModelElementsByType(Gateway.class)) {
+            if (gateway.getOutgoing().size() > 1) {
+                var sources = gateway.getIncoming().stream()
+                        .map(x -> x.getSource().getId())
+                        .sorted()
+                        .collect(Collectors.toList());
+                assertTrue(signatures.add(gateway.getElementType().getTypeName() + sources), gateway.getId());
+            }
+        }
+    }
+
+    @Test
+    void createMergesJoinsWithSameOutputs() {
+        var registry = new ActivityRegistry();
+        var a = registry.getActivity("a");
+        var b = registry.getActivity("b");
+        var c = registry.getActivity("c");
+        var d = registry.getActivity("d");
+        var e = registry.getActivity("e");
+        // two XOR-joins feeding e, which are bundled by a parallel gateway before they are merged
+        var modelInstance = new BPMNCreator().create(
+                List.of(a, b, c, d, e),
+                List.of(),
+                List.of(Triple.of(a, b, e), Triple.of(c, d, e)),
+                List.of(),
+                List.of());
+
+        var gateways = modelInstance.getModelElementsByType(Gateway.class);
+        assertEquals(1, gateways.size());
+        var join = gateways.iterator().next();
+        assertTrue(join instanceof ExclusiveGateway);
+        assertEquals(Set.of("a", "b", "c", "d"), join.getIncoming().stream()
+                .map(x -> x.getSource().getName())
+                .collect(Collectors.toSet()));
+        assertEquals(1, join.getOutgoing().size());
+        assertEquals("e", join.getOutgoing().iterator().next().getTarget().getName());
+    }
+
+    @Test
+    void createMergesJoinsWithSharedSource() {
+        var registry = new ActivityRegistry();
+        var a = registry.getActivity("a");
+        var b = registry.getActivity("b");
+        var c = registry.getActivity("c");
+        var d = registry.getActivity("d");
+        var modelInstance = new BPMNCreator().create(
+                List.of(a, b, c, d),
+                List.of(),
+                List.of(Triple.of(a, b, d), Triple.of(a, c, d)),
+                List.of(),
+                List.of());
+
+        var gateways = modelInstance.getModelElementsByType(Gateway.class);
+        assertEquals(1, gateways.size());
+        var join = gateways.iterator().next();
+        // the flow from a exists only once
+        assertEquals(3, join.getIncoming().size());
+        assertEquals(1, modelInstance.getModelElementsByType(SequenceFlow.class).stream()
+                .filter(x -> x.getSource().getName().equals("a"))
+                .count());
+    }
+
+    @Test
+    void createWithoutRedundantGateways() {
+        var modelInstance = createForGeneratedLog();
+
+        for (var gateway : modelInstance.getModelElementsByType(Gateway.class)) {
+            assertFalse(gateway.getIncoming().size() == 1 && gateway.getOutgoing().size() == 1, gateway.getId());
+        }
+    }
+
+    private BpmnModelInstance createForGeneratedLog() {
+        var registry = new ActivityRegistry();
+        var log = new LogGenerator().withSeed(5).withActivities(60).withTraces(500)
+                .withXorChoices(8).withParallelSplits(6).generate(registry);
+        var builder = new RelationBuilder(registry);
+        builder.evaluate(log);
+        return new BPMNCreator().create(
+                builder.getActivityList(),
+                builder.getAlternatives(),
+                builder.getAbstractions(),
+                builder.getRemainingCausalities(),
+                builder.getNotSuccession());
+    }
+
     private RelationBuilder buildForFile(String fileName) {
         ClassLoader classloader = Thread.currentThread().getContextClassLoader();
 
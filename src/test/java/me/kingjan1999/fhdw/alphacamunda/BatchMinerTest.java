@@ -0,0 +1,69 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.generator.LogGenerator;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.instance.StartEvent;
+import org.camunda.bpm.model.bpmn.instance.UserTask;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchMinerTest {
+
+    @Test
+    void testMineAll(@TempDir Path directory) throws Exception {
+        List<Path> inputs = new ArrayList<>();
+        for (int x = 0; x < 6; x++) {
+            var input = directory.resolve("department-" + x + ".xes");
+            try (var out = new BufferedOutputStream(Files.newOutputStream(input))) {
+                new LogGenerator().withSeed(x).withActivities(5 + x).withTraces(50).writeXes(out);
+            }
+            inputs.add(input);
+        }
+        var broken = directory.resolve("broken.xes");
+        Files.writeString(broken, "<log><trace>");
+        inputs.add(2, broken);
+
+        var executor = Executors.newFixedThreadPool(3);
+        List<BatchMiner.Result> results;
+        try {
+            results = new BatchMiner(executor, 2).mineAll(inputs, directory);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(inputs.size(), results.size());
+        for (int x = 0; x < results.size(); x++) {
+            var result = results.get(x);
+            assertEquals(inputs.get(x), result.getInput());
+            if (inputs.get(x).equals(broken)) {
+                assertFalse(result.isSuccess());
+                assertNotNull(result.getFailure());
+                continue;
+            }
+
+            assertTrue(result.isSuccess(), () -> String.valueOf(result.getFailure()));
+            assertTrue(result.getTotalTime().compareTo(result.getParseTime()) >= 0);
+
+            var modelInstance = Bpmn.readModelFromFile(result.getOutput().toFile());
+            assertEquals(1, modelInstance.getModelElementsByType(StartEvent.class).size());
+            assertFalse(modelInstance.getModelElementsByType(UserTask.class).isEmpty());
+        }
+        assertEquals(directory.resolve("department-0.bpmn"), results.get(0).getOutput());
+    }
+
+    @Test
+    void testOutputFileName() {
+        assertEquals("log.bpmn", BatchMiner.getOutputFileName(Path.of("a", "log.xes")));
+        assertEquals("log.bpmn", BatchMiner.getOutputFileName(Path.of("log.XES.gz")));
+        assertEquals("log.txt.bpmn", BatchMiner.getOutputFileName(Path.of("log.txt")));
+    }
+}
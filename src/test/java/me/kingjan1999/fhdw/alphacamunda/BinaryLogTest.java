@@ -0,0 +1,106 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.EncodedLog;
+import me.kingjan1999.fhdw.alphacamunda.domain.Event;
+import me.kingjan1999.fhdw.alphacamunda.domain.Log;
+import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryLogTest {
+
+    @Test
+    void testRoundTrip(@TempDir Path tempDir) throws IOException, XMLStreamException {
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        var registry = new ActivityRegistry();
+        Log log;
+        try (InputStream is = classloader.getResourceAsStream("parser-fixtures/eventlog-full.xes")) {
+            log = Parser.parse(is, registry);
+        }
+
+        var path = tempDir.resolve("log.bin");
+        BinaryLogWriter.write(log, path);
+        var readLog = BinaryLogReader.read(path, registry);
+
+        assertEquals(log.getTraces().size(), readLog.getTraces().size());
+        for (int x = 0; x < log.getTraces().size(); x++) {
+            var events = readLog.getTraces().get(x).getEvents();
+            var expectedEvents = log.getTraces().get(x).getEvents();
+            assertEquals(expectedEvents.size(), events.size());
+            for (int y = 0; y < events.size(); y++) {
+                assertSame(expectedEvents.get(y).getActivity(), events.get(y).getActivity());
+                assertEquals(expectedEvents.get(y).getResource(), events.get(y).getResource());
+                assertEquals(expectedEvents.get(y).getTimestamp(), events.get(y).getTimestamp());
+            }
+        }
+
+        var encoded = BinaryLogReader.readEncoded(path, registry);
+        var expected = EncodedLog.of(log);
+        assertEquals(expected.getTraceCount(), encoded.getTraceCount());
+        assertArrayEquals(expected.getActivityIds(), encoded.getActivityIds());
+        for (int x = 0; x < expected.getTraceCount(); x++) {
+            assertEquals(expected.getTraceEnd(x), encoded.getTraceEnd(x));
+        }
+    }
+
+    @Test
+    void testMissingAttributes() throws IOException {
+        var registry = new ActivityRegistry();
+        var later = Instant.parse("2020-01-01T00:00:00Z");
+        var earlier = later.minusSeconds(3600);
+        var log = new Log(List.of(
+                new Trace(List.of(
+                        new Event(registry.getActivity("a"), null, later),
+                        new Event(registry.getActivity("b"), "r", null),
+                        new Event(registry.getActivity("a"), "r", earlier))),
+                new Trace(List.of())), registry);
+
+        var out = new ByteArrayOutputStream();
+        BinaryLogWriter.write(log, out);
+        var readLog = BinaryLogReader.read(ByteBuffer.wrap(out.toByteArray()), registry);
+
+        assertEquals(2, readLog.getTraces().size());
+        assertEquals(0, readLog.getTraces().get(1).getEvents().size());
+        var events = readLog.getTraces().get(0).getEvents();
+        assertNull(events.get(0).getResource());
+        assertEquals(later, events.get(0).getTimestamp());
+        assertEquals("r", events.get(1).getResource());
+        assertNull(events.get(1).getTimestamp());
+        assertEquals(earlier, events.get(2).getTimestamp());
+    }
+
+    @Test
+    void testInvalidFiles() throws IOException {
+        var registry = new ActivityRegistry();
+        var out = new ByteArrayOutputStream();
+        BinaryLogWriter.write(new Log(List.of(), registry), out);
+        var bytes = out.toByteArray();
+
+        var futureVersion = Arrays.copyOf(bytes, bytes.length);
+        futureVersion[7] = (byte) (BinaryLogWriter.VERSION + 1);
+        assertThrows(IOException.class, () -> BinaryLogReader.read(ByteBuffer.wrap(futureVersion), registry));
+
+        var noLog = "<log/>".getBytes();
+        assertThrows(IOException.class, () -> BinaryLogReader.read(ByteBuffer.wrap(noLog), registry));
+
+        var truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        assertThrows(IOException.class, () -> BinaryLogReader.read(ByteBuffer.wrap(truncated), registry));
+    }
+}
@@ -1,14 +1,38 @@
 package me.kingjan1999.fhdw.alphacamunda;
 
+import me.kingjan1999.fhdw.alphacamunda.domain.Activity;
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
 import me.kingjan1999.fhdw.alphacamunda.domain.Log;
+import me.kingjan1999.fhdw.alphacamunda.generator.LogGenerator;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import javax.xml.bind.JAXBException;
 import javax.xml.stream.XMLStreamException;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
+import static me.kingjan1999.fhdw.alphacamunda.domain.xml.EventAdapter.ACTIVITY_KEY;
 import static org.junit.jupiter.api.Assertions.*;
 
 class ParserTest {
@@ -38,4 +62,217 @@ class ParserTest {
         // sic! Assert that it's the identical object (i.e. not two instances are created for the same activity)
         assertSame(firstEvent.getActivity(), log.getTraces().get(1).getEvents().get(0).getActivity());
     }
-}
\ No newline at end of file
+
+    @Test
+    void parseMatchesJaxb() {
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+
+        Log log = null;
+        Log jaxbLog = null;
+        try (InputStream is = classloader.getResourceAsStream("parser-fixtures/eventlog-full.xes");
+             InputStream jaxbIs = classloader.getResourceAsStream("parser-fixtures/eventlog-full.xes")) {
+            log = Parser.parse(is);
+            jaxbLog = Parser.parseJaxb(jaxbIs);
+        } catch (IOException | JAXBException | XMLStreamException e) {
+            fail(e);
+        }
+
+        assertEquals(jaxbLog.getTraces().size(), log.getTraces().size());
+        for (int x = 0; x < log.getTraces().size(); x++) {
+            var events = log.getTraces().get(x).getEvents();
+            var jaxbEvents = jaxbLog.getTraces().get(x).getEvents();
+            assertEquals(jaxbEvents.size(), events.size());
+            for (int y = 0; y < events.size(); y++) {
+                assertSame(jaxbEvents.get(y).getActivity(), events.get(y).getActivity());
+                assertEquals(jaxbEvents.get(y).getResource(), events.get(y).getResource());
+                assertEquals(jaxbEvents.get(y).getTimestamp(), events.get(y).getTimestamp());
+            }
+        }
+    }
+
+    @Test
+    void parseParallelMatchesSequential(@TempDir Path tempDir) throws IOException, XMLStreamException, URISyntaxException {
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        var fixture = Path.of(classloader.getResource("parser-fixtures/eventlog-full.xes").toURI());
+        var generated = tempDir.resolve("generated.xes");
+        try (var out = new BufferedOutputStream(Files.newOutputStream(generated))) {
+            new LogGenerator().withSeed(7).withActivities(20).withTraces(500).withXorChoices(2).writeXes(out);
+        }
+
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            for (var path : new Path[]{fixture, generated}) {
+                var registry = new ActivityRegistry();
+                Log log;
+                try (InputStream is = Files.newInputStream(path)) {
+                    log = Parser.parse(is, registry);
+                }
+                // one chunk per trace
+                var parallelLog = new ParallelXesParser(executor, 1).parse(path, registry);
+                assertLogsEqual(log, parallelLog);
+                assertLogsEqual(log, Parser.parseParallel(path, registry));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void parseParallelCancelsRemainingChunks(@TempDir Path tempDir) throws IOException, XMLStreamException {
+        var path = tempDir.resolve("malformed.xes");
+        try (var out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            new LogGenerator().withSeed(7).withActivities(20).withTraces(500).writeXes(out);
+        }
+        var content = Files.readString(path);
+        int firstTrace = content.indexOf("<trace");
+        Files.writeString(path, content.substring(0, firstTrace) + "<trace><<" + content.substring(firstTrace + 6));
+
+        // records the futures of all submitted chunks
+        List<Future<?>> submitted = new ArrayList<>();
+        var executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+                var future = super.newTaskFor(callable);
+                submitted.add(future);
+                return future;
+            }
+        };
+        try {
+            assertThrows(XMLStreamException.class, () -> new ParallelXesParser(executor, 1).parse(path, new ActivityRegistry()));
+            assertEquals(500, submitted.size());
+            assertTrue(submitted.stream().allMatch(Future::isDone));
+            assertTrue(submitted.stream().anyMatch(Future::isCancelled));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void parseParallelStopsRunningChunks(@TempDir Path tempDir) throws IOException, InterruptedException {
+        // the first chunk fails while the second one is running, the end of the second chunk must not be parsed
+        var path = tempDir.resolve("malformed.xes");
+        try (var writer = Files.newBufferedWriter(path)) {
+            writer.write(XES_HEADER);
+            writer.write("<trace>" + event("failing") + "<<</trace>");
+            writer.write("<trace>" + event("blocking"));
+            for (int x = 0; x < 20000; x++) {
+                writer.write(event("filler"));
+            }
+            writer.write(event("last") + "</trace></log>");
+        }
+
+        var secondChunkRunning = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var registry = new RecordingRegistry(name -> {
+            if (name.equals("failing")) {
+                secondChunkRunning.await();
+            } else if (name.equals("blocking")) {
+                secondChunkRunning.countDown();
+                release.await();
+            }
+        });
+        // Future.cancel doesn't interrupt the tasks of a ForkJoinPool, like the common pool used by parseParallel
+        var executor = new ForkJoinPool(2);
+        try {
+            assertThrows(XMLStreamException.class, () -> new ParallelXesParser(executor, 1).parse(path, registry));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(registry.requested.contains("blocking"));
+        assertFalse(registry.requested.contains("last"));
+    }
+
+    @Test
+    void parseParallelFailsWithoutParsingRemainingChunks(@TempDir Path tempDir) throws IOException {
+        // both chunks are larger than the default chunk size
+        var path = tempDir.resolve("malformed.xes");
+        var padding = "<!--" + "x".repeat(17 * 1024 * 1024) + "-->";
+        try (var writer = Files.newBufferedWriter(path)) {
+            writer.write(XES_HEADER);
+            writer.write("<trace><<</trace>" + padding);
+            writer.write("<trace>" + event("first") + padding + event("last") + "</trace></log>");
+        }
+
+        var registry = new RecordingRegistry(name -> { });
+        assertThrows(XMLStreamException.class, () -> Parser.parseParallel(path, registry));
+        assertTrue(ForkJoinPool.commonPool().awaitQuiescence(10, TimeUnit.SECONDS));
+        assertFalse(registry.requested.contains("last"));
+    }
+
+    @Test
+    void parseGzip(@TempDir Path tempDir) throws IOException, XMLStreamException {
+        var plain = tempDir.resolve("generated.xes");
+        var compressed = tempDir.resolve("generated.xes.gz");
+        var generator = new LogGenerator().withSeed(3).withActivities(15).withTraces(500).withParallelSplits(1);
+        try (var out = new BufferedOutputStream(Files.newOutputStream(plain))) {
+            generator.writeXes(out);
+        }
+        try (var out = new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(compressed)))) {
+            generator.writeXes(out);
+        }
+
+        var registry = new ActivityRegistry();
+        var log = Parser.parse(plain, registry);
+        assertEquals(500, log.getTraces().size());
+        assertLogsEqual(log, Parser.parse(compressed, registry));
+        assertLogsEqual(log, Parser.parseParallel(compressed, registry));
+
+        var truncated = tempDir.resolve("truncated.xes.gz");
+        var bytes = Files.readAllBytes(compressed);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(XMLStreamException.class, () -> Parser.parse(truncated, registry));
+    }
+
+    private static void assertLogsEqual(Log expected, Log actual) {
+        assertEquals(expected.getTraces().size(), actual.getTraces().size());
+        for (int x = 0; x < expected.getTraces().size(); x++) {
+            var events = actual.getTraces().get(x).getEvents();
+            var expectedEvents = expected.getTraces().get(x).getEvents();
+            assertEquals(expectedEvents.size(), events.size());
+            for (int y = 0; y < events.size(); y++) {
+                assertSame(expectedEvents.get(y).getActivity(), events.get(y).getActivity());
+                assertEquals(expectedEvents.get(y).getResource(), events.get(y).getResource());
+                assertEquals(expectedEvents.get(y).getTimestamp(), events.get(y).getTimestamp());
+            }
+        }
+    }
+
+    private static final String XES_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><log xes.version=\"1.0\">";
+
+    private static String event(String activity) {
+        return "<event><string key=\"" + ACTIVITY_KEY + "\" value=\"" + activity + "\"/></event>";
+    }
+
+    /**
+     * Registry recording all requested activity names, which calls a hook before an activity is returned
+     */
+    private static class RecordingRegistry extends ActivityRegistry {
+        private final Set<String> requested = ConcurrentHashMap.newKeySet();
+        private final Hook hook;
+
+        private interface Hook {
+            void accept(String name) throws InterruptedException;
+        }
+
+        private RecordingRegistry(Hook hook) {
+            this.hook = hook;
+        }
+
+        @Override
+        public Activity getActivity(String activityName) {
+            // the constructor of the registry registers the fake activities
+            if (hook == null) {
+                return super.getActivity(activityName);
+            }
+            requested.add(activityName);
+            try {
+                hook.accept(activityName);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.getActivity(activityName);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadAheadInputStreamTest {
+
+    @Test
+    void testReadAll() throws IOException {
+        var data = new byte[10_000];
+        for (int x = 0; x < data.length; x++) {
+            data[x] = (byte) x;
+        }
+        try (var stream = new ReadAheadInputStream(new ByteArrayInputStream(data), 1024, 2)) {
+            assertArrayEquals(data, stream.readAllBytes());
+            assertEquals(-1, stream.read());
+        }
+    }
+
+    @Test
+    void testUncheckedFailureOfSource() {
+        var source = new InputStream() {
+            private int count;
+
+            @Override
+            public int read() {
+                if (++count > 100) {
+                    throw new IllegalStateException("broken source");
+                }
+                return 'a';
+            }
+        };
+
+        var stream = new ReadAheadInputStream(source, 16, 2);
+        var failure = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(IOException.class, stream::readAllBytes));
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+        stream.close();
+    }
+}
@@ -1,7 +1,13 @@
 package me.kingjan1999.fhdw.alphacamunda;
 
 import me.kingjan1999.fhdw.alphacamunda.domain.Activity;
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.EncodedLog;
+import me.kingjan1999.fhdw.alphacamunda.domain.Event;
 import me.kingjan1999.fhdw.alphacamunda.domain.Log;
+import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
+import me.kingjan1999.fhdw.alphacamunda.domain.VariantTable;
+import me.kingjan1999.fhdw.alphacamunda.generator.LogGenerator;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 import org.junit.jupiter.api.Test;
@@ -10,9 +16,12 @@ import javax.xml.bind.JAXBException;
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -35,6 +44,118 @@ class RelationBuilderTest {
         internResultsTest();
     }
 
+    @Test
+    void testParallel() {
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        Log log = null;
+        try (InputStream is = classloader.getResourceAsStream("parser-fixtures/eventlog-full.xes")) {
+            log = Parser.parse(is);
+        } catch (IOException | JAXBException | XMLStreamException e) {
+            fail(e);
+        }
+        var pool = new ForkJoinPool(4);
+        try {
+            this.testAlphaObject = new RelationBuilder();
+            this.testAlphaObject.evaluateParallel(log, pool, 1);
+        } finally {
+            pool.shutdown();
+        }
+        internResultsTest();
+    }
+
+    @Test
+    void testParallelMatchesSequential() {
+        var registry = new ActivityRegistry();
+        var log = new LogGenerator().withSeed(11).withActivities(200).withTraces(2000)
+                .withXorChoices(20).withParallelSplits(15).generate(registry);
+        var sequential = new RelationBuilder(registry);
+        sequential.evaluate(log);
+
+        var pool = new ForkJoinPool(4);
+        try {
+            var parallel = new RelationBuilder(registry);
+            parallel.evaluateParallel(log, pool, 7);
+            assertEquals(new HashSet<>(sequential.getActivityList()), new HashSet<>(parallel.getActivityList()));
+            assertEquals(new HashSet<>(sequential.getCausality()), new HashSet<>(parallel.getCausality()));
+            assertEquals(new HashSet<>(sequential.getParallel()), new HashSet<>(parallel.getParallel()));
+            assertEquals(new HashSet<>(sequential.getNotSuccession()), new HashSet<>(parallel.getNotSuccession()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testStreaming() {
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        this.testAlphaObject = new RelationBuilder();
+        try (InputStream is = classloader.getResourceAsStream("parser-fixtures/eventlog-full.xes")) {
+            Parser.parse(is, this.testAlphaObject::addTrace);
+        } catch (IOException | XMLStreamException e) {
+            fail(e);
+        }
+        this.testAlphaObject.evaluate();
+        internResultsTest();
+    }
+
+    @Test
+    void testEncoded() {
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        EncodedLog log = null;
+        try (InputStream is = classloader.getResourceAsStream("parser-fixtures/eventlog-full.xes")) {
+            log = Parser.parseEncoded(is, new ActivityRegistry());
+        } catch (IOException | XMLStreamException e) {
+            fail(e);
+        }
+        assertEquals(6, log.getTraceCount());
+        this.testAlphaObject = new RelationBuilder();
+        this.testAlphaObject.evaluate(log);
+        internResultsTest();
+    }
+
+    @Test
+    void testVariants() {
+        var log = Util.createLogFromStrings("abc", "acb", "abc", "ad", "abc");
+        var variants = VariantTable.of(log);
+
+        assertEquals(3, variants.getVariants().size());
+        assertEquals(5, variants.getTraceCount());
+        var first = variants.getVariants().get(0);
+        assertEquals(3, first.getCount());
+        assertEquals(log.getTraces().get(0).getEvents().get(2).getActivity(), first.getActivities().get(2));
+        assertEquals(1, variants.filter(2).getVariants().size());
+
+        var fromLog = new RelationBuilder();
+        fromLog.evaluate(log);
+        var fromVariants = new RelationBuilder();
+        fromVariants.evaluate(variants);
+
+        assertEquals(new HashSet<>(fromLog.getCausality()), new HashSet<>(fromVariants.getCausality()));
+        assertEquals(new HashSet<>(fromLog.getParallel()), new HashSet<>(fromVariants.getParallel()));
+        assertEquals(new HashSet<>(fromLog.getNotSuccession()), new HashSet<>(fromVariants.getNotSuccession()));
+        assertEquals(new HashSet<>(fromLog.getRemainingCausalities()), new HashSet<>(fromVariants.getRemainingCausalities()));
+    }
+
+    @Test
+    void testIncremental() {
+        var log = Util.createLogFromStrings("abghjkil", "acdefgjhikl", "abgjhikl", "ak", "acdefgjhikl");
+        var incremental = new RelationBuilder();
+
+        for (int x = 0; x < log.getTraces().size(); x++) {
+            incremental.addTrace(log.getTraces().get(x));
+
+            var batch = new RelationBuilder();
+            batch.evaluate(new Log(log.getTraces().subList(0, x + 1)));
+
+            assertEquals(new HashSet<>(batch.getCausality()), new HashSet<>(incremental.getCausality()));
+            assertEquals(new HashSet<>(batch.getParallel()), new HashSet<>(incremental.getParallel()));
+            assertEquals(new HashSet<>(batch.getNotSuccession()), new HashSet<>(incremental.getNotSuccession()));
+            assertEquals(new HashSet<>(batch.getActivityList()), new HashSet<>(incremental.getActivityList()));
+            assertEquals(batch.getAlternatives().size(), incremental.getAlternatives().size());
+            assertEquals(batch.getAbstractions().size(), incremental.getAbstractions().size());
+            assertEquals(new HashSet<>(batch.getRemainingCausalities()), new HashSet<>(incremental.getRemainingCausalities()));
+        }
+    }
+
     @Test
     void testSkript1() {
         // Example 1
@@ -104,4 +225,53 @@ class RelationBuilderTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    void testMatrixSizeOverflow() {
+        assertEquals(256, DirectlyFollowsMatrix.matrixSize(16));
+        assertEquals(46340 * 46340, DirectlyFollowsMatrix.matrixSize(46340));
+        assertThrows(IllegalStateException.class, () -> DirectlyFollowsMatrix.matrixSize(46341));
+        assertThrows(IllegalStateException.class, () -> DirectlyFollowsMatrix.matrixSize(65536));
+    }
+
+    @Test
+    void testRemoveTraceNotAdded() {
+        var builder = new RelationBuilder();
+        Util.createLogFromStrings("abc", "acb").getTraces().forEach(builder::addTrace);
+        var causality = new HashSet<>(builder.getCausality());
+        var parallel = new HashSet<>(builder.getParallel());
+
+        // a > b occurred once only, the start count of a would be decremented before that is noticed
+        for (var trace : Util.createLogFromStrings("abab", "abd").getTraces()) {
+            assertThrows(IllegalArgumentException.class, () -> builder.removeTrace(trace));
+            assertEquals(causality, new HashSet<>(builder.getCausality()));
+            assertEquals(parallel, new HashSet<>(builder.getParallel()));
+        }
+
+        // the matrix is still intact, so the added traces can be removed
+        Util.createLogFromStrings("abc", "acb").getTraces().forEach(builder::removeTrace);
+        assertTrue(builder.getCausality().isEmpty());
+        assertTrue(builder.getParallel().isEmpty());
+    }
+
+    @Test
+    void testAddTraceOfOtherRegistry() {
+        var registry = new ActivityRegistry();
+        var other = new ActivityRegistry();
+        var a = registry.getActivity("a");
+        // same id as a, but a different activity
+        var sameId = other.getActivity("z");
+        for (int x = 0; x < 10; x++) {
+            other.getActivity("other" + x);
+        }
+        // id beyond the size of the registry
+        var unknownId = other.getActivity("y");
+
+        var builder = new RelationBuilder(registry);
+        for (var foreign : List.of(sameId, unknownId)) {
+            var trace = new Trace(List.of(new Event(a, null, null), new Event(foreign, null, null)));
+            assertThrows(IllegalArgumentException.class, () -> builder.addTrace(trace));
+            builder.evaluate();
+            assertTrue(builder.getCausality().isEmpty());
+        }
+    }
+}
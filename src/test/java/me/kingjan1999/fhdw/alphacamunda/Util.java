@@ -13,9 +13,13 @@ import java.util.stream.Collectors;
 
 public class Util {
     static Trace createTraceFromString(String log) {
+        return createTraceFromString(log, Instant.now());
+    }
+
+    static Trace createTraceFromString(String log, Instant timestamp) {
         var events = log.chars()
                 .mapToObj(x -> (char) x)
-                .map(x -> new Event(Activity.getActivity(x.toString()), "ignore", Instant.now()))
+                .map(x -> new Event(Activity.getActivity(x.toString()), "ignore", timestamp))
                 .collect(Collectors.toList());
         return new Trace(events);
     }
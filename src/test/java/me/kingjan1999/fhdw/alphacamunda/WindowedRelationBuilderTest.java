@@ -0,0 +1,70 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.Activity;
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.Trace;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WindowedRelationBuilderTest {
+
+    private static final Instant START = Instant.parse("2020-01-01T00:00:00Z");
+
+    @Test
+    void testSliding() {
+        var window = WindowedRelationBuilder.sliding(ActivityRegistry.getDefault(), Duration.ofHours(1));
+        assertTrue(window.addTrace(Util.createTraceFromString("abc", START)));
+        assertTrue(window.addTrace(Util.createTraceFromString("acb", START.plusSeconds(1800))));
+
+        var relations = window.getRelationBuilder();
+        assertTrue(relations.getParallel().contains(Pair.of(Activity.getActivity("b"), Activity.getActivity("c"))));
+
+        window.advanceTo(START.plusSeconds(3601));
+        assertEquals(1, window.getTraceCount());
+        assertFalse(relations.getParallel().contains(Pair.of(Activity.getActivity("b"), Activity.getActivity("c"))));
+        assertTrue(relations.getCausality().contains(Pair.of(Activity.getActivity("c"), Activity.getActivity("b"))));
+
+        // too old for the current window
+        assertFalse(window.addTrace(Util.createTraceFromString("ad", START)));
+
+        assertTrue(window.addTrace(Util.createTraceFromString("ad", START.plusSeconds(7200))));
+        assertEquals(1, window.getTraceCount());
+        assertResultsEqual(relations, Util.createLogFromStrings("ad").getTraces().get(0));
+        assertFalse(relations.getActivityList().contains(Activity.getActivity("b")));
+    }
+
+    @Test
+    void testTumbling() {
+        var window = WindowedRelationBuilder.tumbling(ActivityRegistry.getDefault(), Duration.ofHours(1));
+        window.addTrace(Util.createTraceFromString("abc", START.plusSeconds(60)));
+        window.addTrace(Util.createTraceFromString("acb", START.plusSeconds(3599)));
+        assertEquals(START, window.getWindowStart());
+        assertEquals(2, window.getTraceCount());
+
+        window.addTrace(Util.createTraceFromString("abd", START.plusSeconds(3600)));
+        assertEquals(START.plusSeconds(3600), window.getWindowStart());
+        assertEquals(1, window.getTraceCount());
+        assertResultsEqual(window.getRelationBuilder(), Util.createLogFromStrings("abd").getTraces().get(0));
+    }
+
+    private void assertResultsEqual(RelationBuilder relations, Trace trace) {
+        var expected = new RelationBuilder();
+        expected.addTrace(trace);
+
+        assertEquals(new HashSet<>(expected.getCausality()), new HashSet<>(relations.getCausality()));
+        assertEquals(new HashSet<>(expected.getParallel()), new HashSet<>(relations.getParallel()));
+        assertEquals(new HashSet<>(expected.getNotSuccession()), new HashSet<>(relations.getNotSuccession()));
+        assertEquals(new HashSet<>(expected.getActivityList()), new HashSet<>(relations.getActivityList()));
+        assertEquals(new HashSet<>(expected.getRemainingCausalities()), new HashSet<>(relations.getRemainingCausalities()));
+        assertEquals(expected.getAlternatives().size(), relations.getAlternatives().size());
+        assertEquals(expected.getAbstractions().size(), relations.getAbstractions().size());
+    }
+}
@@ -0,0 +1,155 @@
+package me.kingjan1999.fhdw.alphacamunda;
+
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.Log;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class XesParserTest {
+
+    @Test
+    void testConcurrentUse() throws IOException, InterruptedException, ExecutionException {
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        byte[] xes;
+        try (InputStream is = classloader.getResourceAsStream("parser-fixtures/eventlog-full.xes")) {
+            xes = is.readAllBytes();
+        }
+
+        var parser = new XesParser();
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Log>> streamed = new ArrayList<>();
+            List<Future<Log>> unmarshalled = new ArrayList<>();
+            for (int x = 0; x < 20; x++) {
+                streamed.add(executor.submit(() -> parser.parse(new ByteArrayInputStream(xes), new ActivityRegistry())));
+                unmarshalled.add(executor.submit(() -> parser.parseJaxb(new ByteArrayInputStream(xes))));
+            }
+
+            for (int x = 0; x < 20; x++) {
+                assertEquals(6, streamed.get(x).get().getTraces().size());
+                assertEquals(6, unmarshalled.get(x).get().getTraces().size());
+                assertEquals(9, unmarshalled.get(x).get().getTraces().get(0).getEvents().size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testOptions() throws IOException, XMLStreamException {
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        byte[] xes;
+        try (InputStream is = classloader.getResourceAsStream("parser-fixtures/eventlog-full.xes")) {
+            xes = is.readAllBytes();
+        }
+
+        var registry = new ActivityRegistry();
+        var full = new XesParser().parse(new ByteArrayInputStream(xes), registry);
+        var activitiesOnly = new XesParser(ParseOptions.activitiesOnly())
+                .parse(new ByteArrayInputStream(xes), registry);
+        var withResources = new XesParser(ParseOptions.activitiesOnly().withResources(true))
+                .parse(new ByteArrayInputStream(xes), registry);
+
+        assertEquals(full.getTraces().size(), activitiesOnly.getTraces().size());
+        for (int x = 0; x < full.getTraces().size(); x++) {
+            var events = full.getTraces().get(x).getEvents();
+            for (int y = 0; y < events.size(); y++) {
+                var activityOnlyEvent = activitiesOnly.getTraces().get(x).getEvents().get(y);
+                var resourceEvent = withResources.getTraces().get(x).getEvents().get(y);
+                assertSame(events.get(y).getActivity(), activityOnlyEvent.getActivity());
+                assertNull(activityOnlyEvent.getResource());
+                assertNull(activityOnlyEvent.getTimestamp());
+                assertNotNull(resourceEvent.getResource());
+                assertEquals(events.get(y).getResource(), resourceEvent.getResource());
+                assertNull(resourceEvent.getTimestamp());
+            }
+        }
+    }
+
+    @Test
+    void testClassifier() throws IOException, XMLStreamException {
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        byte[] xes;
+        try (InputStream is = classloader.getResourceAsStream("parser-fixtures/eventlog-full.xes")) {
+            xes = is.readAllBytes();
+        }
+
+        var registry = new ActivityRegistry();
+        var byName = new XesParser(ParseOptions.all().withClassifier("activity classifier"))
+                .parse(new ByteArrayInputStream(xes), registry);
+        var conceptName = new XesParser(ParseOptions.all().withClassifier(EventClassifier.of("concept:name")))
+                .parse(new ByteArrayInputStream(xes), registry);
+        var composite = new XesParser(ParseOptions.all().withClassifier(EventClassifier.of("Activity", "Resource")))
+                .parse(new ByteArrayInputStream(xes), registry);
+
+        var firstEvent = byName.getTraces().get(0).getEvents().get(0);
+        assertEquals("register request", firstEvent.getActivity().getName());
+        assertSame(firstEvent.getActivity(), conceptName.getTraces().get(0).getEvents().get(0).getActivity());
+        var compositeEvent = composite.getTraces().get(0).getEvents().get(0);
+        assertEquals("register request+Pete", compositeEvent.getActivity().getName());
+        assertEquals("Pete", compositeEvent.getResource());
+
+        var unknown = new XesParser(ParseOptions.all().withClassifier("unknown"));
+        assertThrows(XMLStreamException.class, () -> unknown.parse(new ByteArrayInputStream(xes), registry));
+        var missing = new XesParser(ParseOptions.all().withClassifier(EventClassifier.of("lifecycle:transition")));
+        assertThrows(XMLStreamException.class, () -> missing.parse(new ByteArrayInputStream(xes), registry));
+    }
+
+    @Test
+    void testXesClassifierKeys() {
+        assertEquals(List.of("concept:name", "lifecycle:transition"),
+                EventClassifier.ofXes("concept:name lifecycle:transition").getKeys());
+        assertEquals(List.of("Activity name", "Resource"),
+                EventClassifier.ofXes(" 'Activity name'  Resource ").getKeys());
+        assertThrows(IllegalArgumentException.class, () -> EventClassifier.ofXes("'open"));
+        assertThrows(IllegalArgumentException.class, () -> EventClassifier.ofXes(" "));
+    }
+
+    @Test
+    void testCompositeActivityNames() {
+        var classifier = EventClassifier.of("a", "b");
+        assertEquals("x+y", classifier.activityName(new String[]{"x", "y"}));
+        assertNotEquals(classifier.activityName(new String[]{"x+y", "z"}), classifier.activityName(new String[]{"x", "y+z"}));
+        assertEquals("x\\+y+z", classifier.activityName(new String[]{"x+y", "z"}));
+        assertEquals("x\\\\+\\?", classifier.activityName(new String[]{"x\\", null}));
+        assertNotEquals(classifier.activityName(new String[]{"x", ""}), classifier.activityName(new String[]{"x", null}));
+        assertNull(classifier.activityName(new String[]{null, null}));
+    }
+
+    @Test
+    void testJaxbParsesTimestampsOnRequest() throws JAXBException, XMLStreamException {
+        var xes = "<log><trace><event>"
+                + "<string key=\"Activity\" value=\"a\"/>"
+                + "<date key=\"time:timestamp\" value=\"2020-01-01T00:00:00+18:30\"/>"
+                + "</event><event>"
+                + "<string key=\"Activity\" value=\"b\"/>"
+                + "<date key=\"time:timestamp\" value=\"2020-01-01T00:00:00+01:00\"/>"
+                + "</event></trace></log>";
+        var events = new XesParser().parseJaxb(new ByteArrayInputStream(xes.getBytes(StandardCharsets.UTF_8)))
+                .getTraces().get(0).getEvents();
+
+        // the invalid timestamp is only noticed when it is requested
+        assertThrows(DateTimeParseException.class, () -> events.get(0).getTimestamp());
+        assertEquals(Instant.parse("2019-12-31T23:00:00Z"), events.get(1).getTimestamp());
+    }
+}
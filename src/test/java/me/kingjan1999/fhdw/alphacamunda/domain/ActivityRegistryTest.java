@@ -0,0 +1,68 @@
+package me.kingjan1999.fhdw.alphacamunda.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivityRegistryTest {
+
+    @Test
+    void denseIds() {
+        var registry = new ActivityRegistry();
+        assertEquals(0, registry.getFakeStart().getId());
+        assertEquals(1, registry.getFakeEnd().getId());
+
+        var a = registry.getActivity("a");
+        var b = registry.getActivity("b");
+        assertEquals(2, a.getId());
+        assertEquals(3, b.getId());
+        assertSame(a, registry.getActivity("a"));
+        assertSame(b, registry.getActivity(3));
+        assertEquals(4, registry.size());
+    }
+
+    @Test
+    void scopedRegistries() {
+        var registry = new ActivityRegistry();
+        var scoped = registry.getActivity("check ticket");
+        var global = Activity.getActivity("check ticket");
+
+        assertNotSame(global, scoped);
+        assertEquals(global, scoped);
+        assertSame(global, ActivityRegistry.getDefault().getActivity("check ticket"));
+    }
+
+    @Test
+    void bounded() {
+        var registry = new ActivityRegistry(3);
+        registry.getActivity("a");
+        registry.getActivity("a");
+        assertThrows(IllegalStateException.class, () -> registry.getActivity("b"));
+    }
+
+    @Test
+    void concurrentInterning() throws InterruptedException {
+        var registry = new ActivityRegistry();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                for (int x = 0; x < 1000; x++) {
+                    registry.getActivity("activity" + x);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(1002, registry.size());
+        for (int id = 0; id < registry.size(); id++) {
+            var activity = registry.getActivity(id);
+            assertEquals(id, activity.getId());
+            assertSame(activity, registry.getActivity(activity.getName()));
+        }
+    }
+}
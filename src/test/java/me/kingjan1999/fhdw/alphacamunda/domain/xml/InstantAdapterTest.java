@@ -0,0 +1,62 @@
+package me.kingjan1999.fhdw.alphacamunda.domain.xml;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InstantAdapterTest {
+
+    @Test
+    void testMatchesFormatter() {
+        var dates = new String[]{
+                "2010-12-30T14:32:00.000+01:00",
+                "2011-04-13T14:02:31.199+02:00",
+                "2020-01-01T00:00:00Z",
+                "2020-02-29T23:59:59.123456789-05:30",
+                "1969-12-31T23:59:59.5Z",
+                "1900-03-01T12:00:00+00:00",
+                "2000-02-29T00:00:00+18:00",
+                "2000-02-29T00:00:00-18:00",
+                "2020-01-01T00:00:00+18:30",
+                "2020-01-01T00:00:00-18:01",
+                // not handled by the fast path
+                "2020-01-01T10:15+01:00",
+                "2020-01-01T10:15:30+01:00[Europe/Berlin]",
+                "2020-01-01T10:15:30+0100",
+                "2019-01-01T00:00:00.Z",
+        };
+
+        for (var date : dates) {
+            Instant expected;
+            try {
+                expected = DateTimeFormatter.ISO_ZONED_DATE_TIME.parse(date, Instant::from);
+            } catch (DateTimeParseException e) {
+                assertThrows(DateTimeParseException.class, () -> InstantAdapter.parse(date), date);
+                continue;
+            }
+            assertEquals(expected, InstantAdapter.parse(date), date);
+        }
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(DateTimeParseException.class, () -> InstantAdapter.parse("2019-02-29T00:00:00Z"));
+        assertThrows(DateTimeParseException.class, () -> InstantAdapter.parse("2019-13-01T00:00:00Z"));
+        assertThrows(DateTimeParseException.class, () -> InstantAdapter.parse("2019-01-01T24:00:01Z"));
+        assertThrows(DateTimeParseException.class, () -> InstantAdapter.parse("2019-01-01T00:00:00"));
+        assertThrows(DateTimeParseException.class, () -> InstantAdapter.parse("2020-01-01T00:00:00+18:30"));
+    }
+
+    @Test
+    void testRoundTrip() {
+        var instant = Instant.parse("2010-12-30T13:32:00.120Z");
+        var attribute = new DateAttribute("time:timestamp", instant);
+        assertEquals(instant, attribute.getValue());
+        assertEquals(instant, new InstantAdapter().unmarshal(new InstantAdapter().marshal(instant)));
+    }
+}
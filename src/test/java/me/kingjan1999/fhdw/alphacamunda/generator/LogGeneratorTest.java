@@ -0,0 +1,95 @@
+package me.kingjan1999.fhdw.alphacamunda.generator;
+
+import me.kingjan1999.fhdw.alphacamunda.BPMNCreator;
+import me.kingjan1999.fhdw.alphacamunda.Parser;
+import me.kingjan1999.fhdw.alphacamunda.RelationBuilder;
+import me.kingjan1999.fhdw.alphacamunda.domain.ActivityRegistry;
+import me.kingjan1999.fhdw.alphacamunda.domain.Log;
+import org.camunda.bpm.model.bpmn.instance.Activity;
+import org.camunda.bpm.model.bpmn.instance.ExclusiveGateway;
+import org.camunda.bpm.model.bpmn.instance.ParallelGateway;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogGeneratorTest {
+
+    private LogGenerator createGenerator() {
+        return new LogGenerator()
+                .withSeed(4711)
+                .withActivities(12)
+                .withTraces(200)
+                .withXorChoices(2)
+                .withParallelSplits(1)
+                .withBranches(2);
+    }
+
+    @Test
+    void reproducible() {
+        var first = createGenerator().generate(new ActivityRegistry());
+        var second = createGenerator().generate(new ActivityRegistry());
+
+        assertEquals(200, first.getTraces().size());
+        assertEquals(traceNames(first), traceNames(second));
+        // 12 activities, two of them skipped by the XOR blocks
+        assertEquals(10, first.getTraces().get(0).getEvents().size());
+    }
+
+    @Test
+    void writeXes() {
+        var outputStream = new ByteArrayOutputStream();
+        Log parsed = null;
+        try {
+            createGenerator().writeXes(outputStream);
+            parsed = Parser.parse(new ByteArrayInputStream(outputStream.toByteArray()), new ActivityRegistry());
+        } catch (XMLStreamException e) {
+            fail(e);
+        }
+
+        var generated = createGenerator().generate(new ActivityRegistry());
+        assertEquals(traceNames(generated), traceNames(parsed));
+        var event = parsed.getTraces().get(3).getEvents().get(2);
+        var generatedEvent = generated.getTraces().get(3).getEvents().get(2);
+        assertEquals(generatedEvent.getResource(), event.getResource());
+        assertEquals(generatedEvent.getTimestamp(), event.getTimestamp());
+    }
+
+    @Test
+    void discoverGeneratedProcess() {
+        var builder = new RelationBuilder();
+        builder.evaluate(createGenerator().generate(new ActivityRegistry()));
+        var modelInstance = BPMNCreator.createAndLayout(builder);
+
+        assertEquals(12, modelInstance.getModelElementsByType(Activity.class).size());
+        assertFalse(modelInstance.getModelElementsByType(ExclusiveGateway.class).isEmpty());
+        assertFalse(modelInstance.getModelElementsByType(ParallelGateway.class).isEmpty());
+    }
+
+    @Test
+    void repetitions() {
+        var log = createGenerator().withRepetitions(2, 3).generate(new ActivityRegistry());
+        for (var trace : log.getTraces()) {
+            var length = trace.getEvents().size();
+            assertTrue(length == 20 || length == 30, "length " + length);
+        }
+    }
+
+    @Test
+    void invalidResources() {
+        assertThrows(IllegalArgumentException.class, () -> createGenerator().withResources(0).generate(new ActivityRegistry()));
+        assertThrows(IllegalArgumentException.class, () -> createGenerator().withResources(-1).generate(new ActivityRegistry()));
+    }
+
+    private static String traceNames(Log log) {
+        var names = new StringBuilder();
+        for (var trace : log.getTraces()) {
+            trace.getEvents().forEach(x -> names.append(x.getActivity().getName()).append(','));
+            names.append('\n');
+        }
+        return names.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package me.kingjan1999.fhdw.alphacamunda.layouter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionTreeTest {
+
+    @Test
+    void testComponentsAndNestedRegions() {
+        // 0 -> 1 -> {2, 3} -> 4 -> 5, inside 2: 2 -> {6, 7} -> 8 -> 4 and a second component 9 -> 10
+        int[] sources = {0, 1, 1, 3, 4, 2, 2, 6, 7, 8, 9};
+        int[] targets = {1, 2, 3, 4, 5, 6, 7, 8, 8, 4, 10};
+        var tree = new RegionTree(11, sources, targets).compute();
+
+        var blocks = tree.getBlocks();
+        assertEquals(4, blocks.size());
+        assertEquals(-1, blocks.get(0).getParent());
+        assertEquals(-1, blocks.get(1).getParent());
+
+        var outer = blocks.get(2);
+        assertEquals(0, outer.getParent());
+        assertEquals(1, outer.getEntry());
+        assertEquals(4, outer.getExit());
+        var inner = blocks.get(3);
+        assertEquals(2, inner.getParent());
+        assertEquals(2, inner.getEntry());
+        assertEquals(8, inner.getExit());
+        assertEquals(2, inner.getDepth());
+
+        assertArrayEquals(new int[]{0, 2, 3, 2, 2, 0, 3, 3, 3, 1, 1}, tree.getOwner());
+    }
+
+    @Test
+    void testRegionOnCycleIsSkipped() {
+        // 0 -> 1 -> 2 -> {3, 4} -> 5 -> 6 -> 1 and 6 -> 7. The region 2..5 has a single entry and exit,
+        // but it lies on the cycle through 1 and 6
+        int[] sources = {0, 1, 2, 2, 3, 4, 5, 6, 6};
+        int[] targets = {1, 2, 3, 4, 5, 5, 6, 1, 7};
+        var tree = new RegionTree(8, sources, targets).compute();
+
+        assertEquals(1, tree.getBlocks().size());
+
+        // without the edge closing the cycle, the same nodes form a region
+        int[] acyclicSources = {0, 1, 2, 2, 3, 4, 5, 6};
+        int[] acyclicTargets = {1, 2, 3, 4, 5, 5, 6, 7};
+        var acyclicTree = new RegionTree(8, acyclicSources, acyclicTargets).compute();
+
+        assertEquals(2, acyclicTree.getBlocks().size());
+        assertEquals(2, acyclicTree.getBlocks().get(1).getEntry());
+        assertEquals(5, acyclicTree.getBlocks().get(1).getExit());
+    }
+}
@@ -0,0 +1,206 @@
+package me.kingjan1999.fhdw.alphacamunda.layouter;
+
+import me.kingjan1999.fhdw.alphacamunda.BPMNUtil;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.instance.FlowNode;
+import org.camunda.bpm.model.bpmn.instance.Process;
+import org.camunda.bpm.model.bpmn.instance.SequenceFlow;
+import org.camunda.bpm.model.bpmn.instance.ServiceTask;
+import org.camunda.bpm.model.bpmn.instance.StartEvent;
+import org.camunda.bpm.model.bpmn.instance.UserTask;
+import org.camunda.bpm.model.bpmn.instance.bpmndi.BpmnEdge;
+import org.camunda.bpm.model.bpmn.instance.bpmndi.BpmnShape;
+import org.camunda.bpm.model.bpmn.instance.dc.Bounds;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SugiyamaLayouterTest {
+
+    @Test
+    void testLayoutWithCycleAndSelfLoop() {
+        var modelInstance = createModelWithCycle();
+        var layouted = new SugiyamaLayouter().layout(modelInstance);
+        Bpmn.validateModel(layouted);
+
+        assertEquals(modelInstance.getModelElementsByType(FlowNode.class).size(),
+                layouted.getModelElementsByType(FlowNode.class).size());
+        assertEquals(2, layouted.getModelElementsByType(UserTask.class).size());
+
+        Map<String, Bounds> bounds = new HashMap<>();
+        for (var shape : layouted.getModelElementsByType(BpmnShape.class)) {
+            bounds.put(shape.getBpmnElement().getId(), shape.getBounds());
+        }
+        for (var node : layouted.getModelElementsByType(FlowNode.class)) {
+            assertTrue(bounds.containsKey(node.getId()), node.getId());
+            assertEquals(node.getId(), node.getName());
+        }
+
+        var edges = layouted.getModelElementsByType(BpmnEdge.class);
+        assertEquals(layouted.getModelElementsByType(SequenceFlow.class).size(), edges.size());
+        for (var edge : edges) {
+            var flow = (SequenceFlow) edge.getBpmnElement();
+            var waypoints = new ArrayList<>(edge.getWaypoints());
+            assertTrue(waypoints.size() >= 2, flow.getId());
+
+            // edges start at their source and end at their target
+            var first = waypoints.get(0);
+            var last = waypoints.get(waypoints.size() - 1);
+            assertTrue(touches(bounds.get(flow.getSource().getId()), first.getX(), first.getY()), flow.getId());
+            assertTrue(touches(bounds.get(flow.getTarget().getId()), last.getX(), last.getY()), flow.getId());
+        }
+
+        // shapes do not overlap
+        List<Bounds> allBounds = new ArrayList<>(bounds.values());
+        for (int x = 0; x < allBounds.size(); x++) {
+            for (int y = x + 1; y < allBounds.size(); y++) {
+                assertFalse(overlap(allBounds.get(x), allBounds.get(y)));
+            }
+        }
+    }
+
+    @Test
+    void testLayoutIsDeterministic() {
+        var modelInstance = createModelWithCycle();
+        assertEquals(describeDiagram(new SugiyamaLayouter().layout(modelInstance)),
+                describeDiagram(new SugiyamaLayouter().layout(modelInstance)));
+    }
+
+    @Test
+    void testParallelLayoutOfComponentsAndRegions() {
+        var modelInstance = Bpmn.createExecutableProcess()
+                .startEvent("start")
+                .serviceTask("a")
+                .parallelGateway("fork")
+                .serviceTask("b")
+                .exclusiveGateway("choice")
+                .serviceTask("c")
+                .exclusiveGateway("merge")
+                .moveToNode("choice")
+                .serviceTask("d")
+                .connectTo("merge")
+                .parallelGateway("join")
+                .serviceTask("e")
+                .endEvent("end")
+                .moveToNode("fork")
+                .serviceTask("f")
+                .connectTo("join")
+                .done();
+        // second component
+        var process = modelInstance.getModelElementsByType(Process.class).iterator().next();
+        FlowNode previous = BPMNUtil.appendElement(process, "otherStart", null, StartEvent.class);
+        for (int x = 0; x < 3; x++) {
+            FlowNode next = BPMNUtil.appendElement(process, "other" + x, null, ServiceTask.class);
+            var flow = BPMNUtil.appendElement(process, "otherFlow" + x, null, SequenceFlow.class);
+            flow.setSource(previous);
+            flow.setTarget(next);
+            previous.getOutgoing().add(flow);
+            next.getIncoming().add(flow);
+            previous = next;
+        }
+
+        // every block is handed over to the executor, however small it is
+        var executor = Executors.newFixedThreadPool(4);
+        var submitted = new AtomicInteger();
+        BpmnModelInstance parallel;
+        try {
+            parallel = new SugiyamaLayouter(task -> {
+                submitted.incrementAndGet();
+                executor.execute(task);
+            }, 0).layout(modelInstance);
+        } finally {
+            executor.shutdown();
+        }
+        // two components, the parallel and the exclusive region
+        assertEquals(4, submitted.get());
+        assertEquals(describeDiagram(new SugiyamaLayouter(Runnable::run).layout(modelInstance)), describeDiagram(parallel));
+
+        Map<String, Bounds> bounds = new HashMap<>();
+        for (var shape : parallel.getModelElementsByType(BpmnShape.class)) {
+            bounds.put(shape.getBpmnElement().getId(), shape.getBounds());
+        }
+        // the second component is placed below the first one
+        double bottom = 0;
+        for (var entry : bounds.entrySet()) {
+            if (!entry.getKey().startsWith("other")) {
+                bottom = Math.max(bottom, entry.getValue().getY() + entry.getValue().getHeight());
+            }
+        }
+        assertTrue(bounds.get("otherStart").getY() > bottom);
+
+        // edges leaving a region start at its exit
+        for (var edge : parallel.getModelElementsByType(BpmnEdge.class)) {
+            var flow = (SequenceFlow) edge.getBpmnElement();
+            var waypoints = new ArrayList<>(edge.getWaypoints());
+            var first = waypoints.get(0);
+            var last = waypoints.get(waypoints.size() - 1);
+            assertTrue(touches(bounds.get(flow.getSource().getId()), first.getX(), first.getY()), flow.getId());
+            assertTrue(touches(bounds.get(flow.getTarget().getId()), last.getX(), last.getY()), flow.getId());
+        }
+        List<Bounds> allBounds = new ArrayList<>(bounds.values());
+        for (int x = 0; x < allBounds.size(); x++) {
+            for (int y = x + 1; y < allBounds.size(); y++) {
+                assertFalse(overlap(allBounds.get(x), allBounds.get(y)));
+            }
+        }
+    }
+
+    /**
+     * @return the coordinates of all shapes and edges, the generated process ids are ignored
+     */
+    private static List<String> describeDiagram(BpmnModelInstance modelInstance) {
+        List<String> result = new ArrayList<>();
+        for (var shape : modelInstance.getModelElementsByType(BpmnShape.class)) {
+            var bounds = shape.getBounds();
+            result.add(shape.getId() + " " + bounds.getX() + "," + bounds.getY());
+        }
+        for (var edge : modelInstance.getModelElementsByType(BpmnEdge.class)) {
+            var description = new StringBuilder(edge.getId());
+            edge.getWaypoints().forEach(x -> description.append(' ').append(x.getX()).append(',').append(x.getY()));
+            result.add(description.toString());
+        }
+        return result;
+    }
+
+    /**
+     * start -> a -> split -> b -> end, split -> a and b -> b
+     */
+    private static BpmnModelInstance createModelWithCycle() {
+        var modelInstance = Bpmn.createExecutableProcess()
+                .startEvent("start")
+                .serviceTask("a")
+                .exclusiveGateway("split")
+                .serviceTask("b")
+                .endEvent("end")
+                .moveToNode("split")
+                .connectTo("a")
+                .done();
+
+        var process = modelInstance.getModelElementsByType(Process.class).iterator().next();
+        FlowNode b = modelInstance.getModelElementById("b");
+        var loop = BPMNUtil.appendElement(process, "b-b", null, SequenceFlow.class);
+        loop.setSource(b);
+        loop.setTarget(b);
+        b.getOutgoing().add(loop);
+        b.getIncoming().add(loop);
+        return modelInstance;
+    }
+
+    private static boolean touches(Bounds bounds, double x, double y) {
+        return x >= bounds.getX() && x <= bounds.getX() + bounds.getWidth()
+                && y >= bounds.getY() && y <= bounds.getY() + bounds.getHeight();
+    }
+
+    private static boolean overlap(Bounds first, Bounds second) {
+        return first.getX() < second.getX() + second.getWidth() && second.getX() < first.getX() + first.getWidth()
+                && first.getY() < second.getY() + second.getHeight() && second.getY() < first.getY() + first.getHeight();
+    }
+}